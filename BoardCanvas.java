@@ -0,0 +1,137 @@
+import java.util.List;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+//draws the whole PlayingField on one Canvas from the CardAtlas; drag and drop hit-tests pile geometry
+public class BoardCanvas extends Canvas
+{
+    private static final double W = CardAtlas.WIDTH;
+    private static final double H = CardAtlas.HEIGHT;
+    private static final Color BACKGROUND = Color.web("#006400");
+
+    private final PlayingField model;
+    private final Runnable onChange; //called after every successful action, must end in refresh()
+
+    //pile geometry by pile index: position of the bottom card and offset per card
+    private final double[] x = new double[PlayingField.PILE_COUNT];
+    private final double[] y = new double[PlayingField.PILE_COUNT];
+    private final double[] dx = new double[PlayingField.PILE_COUNT];
+    private final double[] dy = new double[PlayingField.PILE_COUNT];
+    private final Color[] placeholder = new Color[PlayingField.PILE_COUNT];
+
+    //drag state
+    private int dragPile = -1;
+    private double dragX, dragY; //mouse offset inside the dragged card
+    private double mouseX, mouseY;
+
+    public BoardCanvas(PlayingField model, Runnable onChange)
+    {
+        super(960, 620);
+        this.model = model;
+        this.onChange = onChange;
+
+        place(PlayingField.STOCK, 20, 10, 0, 0, Color.DARKGREEN);
+        place(PlayingField.WASTE, 120, 10, 15, 0, Color.LIGHTGRAY); //horizontal offset for 3 cards
+        place(PlayingField.RESERVE, 250, 10, 0, 4, Color.LIGHTBLUE);
+        double rowX = (getWidth() - (4 * W + 3 * 10)) / 2;
+        for (int i = 0; i < 4; i++) {
+            place(PlayingField.FOUNDATION + i, rowX + i * (W + 10), 190, 0, 0, Color.BEIGE);
+            place(PlayingField.TABLEAU + i, rowX + i * (W + 10), 330, 0, 14, Color.SALMON);
+        }
+
+        setOnMousePressed(e -> {
+            int pile = pileAt(e.getX(), e.getY());
+            if (pile == PlayingField.STOCK) { //click stock to draw 3 cards into waste
+                model.drawFromStockRuleOf3();
+                changed();
+            } else if (pile >= PlayingField.WASTE && !model.getPile(pile).isEmpty() && !isFoundation(pile)) {
+                dragPile = pile;
+                int top = shownCount(pile) - 1;
+                dragX = e.getX() - (x[pile] + top * dx[pile]);
+                dragY = e.getY() - (y[pile] + top * dy[pile]);
+            }
+        });
+        setOnMouseDragged(e -> {
+            if (dragPile < 0) return;
+            mouseX = e.getX();
+            mouseY = e.getY();
+            render();
+        });
+        setOnMouseReleased(e -> {
+            if (dragPile < 0) return;
+            int target = pileAt(e.getX(), e.getY());
+            int from = dragPile;
+            dragPile = -1;
+            if (target >= 0 && target != from && model.moveCards(model.getPile(from), model.getPile(target)) > 0) changed();
+            else render();
+        });
+    }
+
+    private void place(int pile, double px, double py, double pdx, double pdy, Color empty)
+    {
+        x[pile] = px;
+        y[pile] = py;
+        dx[pile] = pdx;
+        dy[pile] = pdy;
+        placeholder[pile] = empty;
+    }
+
+    private void changed() { onChange.run(); } //the owner refreshes, which redraws the dirty board once
+
+    public void refresh() //redraw if the model changed since the last frame
+    {
+        if (model.takeDirtyPiles() != 0) render();
+    }
+
+    //redraw the board, no allocation per frame
+    public void render()
+    {
+        model.takeDirtyPiles();
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, getWidth(), getHeight());
+
+        for (int p = 0; p < PlayingField.PILE_COUNT; p++)
+        {
+            List<Card> cards = model.getPile(p).getCards();
+            int shown = shownCount(p);
+            if (shown == 0) {
+                gc.setFill(placeholder[p]);
+                gc.fillRoundRect(x[p], y[p], W, H, 15, 15);
+                gc.setStroke(Color.BLACK);
+                gc.strokeRoundRect(x[p], y[p], W, H, 15, 15);
+                continue;
+            }
+            int first = cards.size() - shown;
+            int last = p == dragPile ? shown - 1 : shown; //dragged card is drawn under the mouse
+            boolean faceUp = model.getPile(p).isFaceUp();
+            for (int i = 0; i < last; i++) {
+                Card c = cards.get(first + i);
+                CardAtlas.draw(gc, faceUp ? c.ordinal() : CardAtlas.BACK, x[p] + i * dx[p], y[p] + i * dy[p]);
+            }
+        }
+
+        if (dragPile >= 0) CardAtlas.draw(gc, model.getPile(dragPile).topCard().ordinal(), mouseX - dragX, mouseY - dragY);
+    }
+
+    private int shownCount(int pile) //how many of the pile's cards are drawn
+    {
+        int size = model.getPile(pile).size();
+        if (pile == PlayingField.STOCK || isFoundation(pile)) return Math.min(1, size);
+        if (pile == PlayingField.WASTE) return Math.min(model.getWaste().getDisplayCount(), size);
+        return size;
+    }
+
+    public int pileAt(double px, double py) //pile index under a point, -1 if none
+    {
+        for (int p = 0; p < PlayingField.PILE_COUNT; p++)
+        {
+            int extra = Math.max(0, shownCount(p) - 1);
+            if (px >= x[p] && px < x[p] + extra * dx[p] + W && py >= y[p] && py < y[p] + extra * dy[p] + H) return p;
+        }
+        return -1;
+    }
+
+    private static boolean isFoundation(int pile) { return pile >= PlayingField.FOUNDATION && pile < PlayingField.TABLEAU; }
+}
@@ -1,14 +1,19 @@
+import java.util.ArrayList;
+import java.util.List;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
 import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.Dragboard;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.TransferMode;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
@@ -24,7 +29,17 @@ public class CanfieldGUI extends Application
     private final HBox foundationBox = new HBox(10);
     private final HBox tableauBox = new HBox(10);
     private final Label scoreLabel = new Label("Score: 0");
+    private final Label hintLabel = new Label();
+    private final CheckBox autoPlay = new CheckBox("Auto-play"); //send safe cards up after every move
+    private final HintService hints = new HintService(); //searches off the FX thread
+    private final List<PileView> foundationViews = new ArrayList<>();
+    private final List<PileView> tableauViews = new ArrayList<>();
+    private final PileView[] pileViews = new PileView[PlayingField.PILE_COUNT]; //by pile index
+    private PileView stockPileView;
+    private PileView reservePileView;
+    private PileView wastePileView;
     private BorderPane root;
+    private BoardCanvas board; //canvas renderer, used instead of the pile views when started with --canvas
 
     private static PlayingField playingField;
     public static PlayingField getPlayingFieldInstance() { return playingField; }
@@ -33,16 +48,36 @@ public class CanfieldGUI extends Application
     public void start(Stage primaryStage) //start method
     {
         playingField = model;
+        if (getParameters().getRaw().contains("--canvas")) board = new BoardCanvas(model, this::playerMoved);
+        else createPileViews();
         root = new BorderPane();
         root.setPadding(new Insets(20));
         root.setStyle("-fx-background-color: #006400;");
 
         Text title = new Text("Canfield!");
         title.setFont(Font.font("Courier New", FontWeight.BOLD, 28));
-        title.setFill(javafx.scene.paint.Color.WHITE);
+        title.setFill(Color.WHITE);
+
+        scoreLabel.setTextFill(Color.WHITE);
+        Button undoButton = new Button("Undo");
+        undoButton.setOnAction(e -> { if (model.undo()) refreshUI(); });
+        Button redoButton = new Button("Redo");
+        redoButton.setOnAction(e -> { if (model.redo()) refreshUI(); });
+        Button hintButton = new Button("Hint");
+        hintButton.setOnAction(e -> {
+            if (!model.isGameStarted()) return;
+            hintLabel.setText("thinking...");
+            long position = model.getHash();
+            hints.hint(model).thenAccept(h -> Platform.runLater(() -> {
+                if (model.getHash() == position) hintLabel.setText("Hint: " + h); //still the same position
+            }));
+        });
+        hintLabel.setTextFill(Color.WHITE);
+        autoPlay.setTextFill(Color.WHITE);
+        HBox historyBox = new HBox(10, undoButton, redoButton, autoPlay, hintButton, hintLabel);
+        historyBox.setAlignment(Pos.CENTER);
 
-        scoreLabel.setTextFill(javafx.scene.paint.Color.WHITE);
-        VBox topBox = new VBox(10, title, scoreLabel);
+        VBox topBox = new VBox(10, title, scoreLabel, historyBox);
         topBox.setAlignment(Pos.CENTER);
         root.setTop(topBox);
 
@@ -60,24 +95,59 @@ public class CanfieldGUI extends Application
         primaryStage.show();
     }
 
-    private void startGameUI() //initialize game UI
+    private void createPileViews() //one view per pile for the whole session, patched as the model changes
     {
-        model.startGame();
-
-        stockView.getChildren().clear();
-        reserveView.getChildren().clear();
-        wasteView.getChildren().clear();
-        foundationBox.getChildren().clear();
-        tableauBox.getChildren().clear();
+        stockPileView = new PileView(model.getStock(), Color.DARKGREEN, PileView.Style.FACE_DOWN);
+        reservePileView = new PileView(model.getReserve(), Color.LIGHTBLUE, PileView.Style.STACKED);
+        wastePileView = new PileView(model.getWaste(), Color.LIGHTGRAY, PileView.Style.FANNED);
+        for (Foundation f : model.getFoundations())
+            foundationViews.add(new PileView(f, Color.BEIGE, PileView.Style.TOP_ONLY));
+        for (Tableau t : model.getTableaus())
+            tableauViews.add(new PileView(t, Color.SALMON, PileView.Style.STACKED));
 
         // assign IDs for drag/drop recognition
-        model.getStock().getView().setId("stock");
-        model.getReserve().getView().setId("reserve");
-        model.getWaste().getView().setId("waste");
+        stockPileView.setId("stock");
+        reservePileView.setId("reserve");
+        wastePileView.setId("waste");
+
+        stockView.getChildren().add(stockPileView);
+        reserveView.getChildren().add(reservePileView);
+        wasteView.getChildren().add(wastePileView);
+
+        //foundations
+        for (int i = 0; i < foundationViews.size(); i++)
+        {
+            var foundation = foundationViews.get(i);
+            foundation.setId("foundation" + i);
+            foundationBox.getChildren().add(foundation);
+        }
+
+        //tableaus
+        for (int i = 0; i < tableauViews.size(); i++)
+        {
+            var tableau = tableauViews.get(i);
+            tableau.setId("tableau" + i);
+            tableauBox.getChildren().add(tableau);
+        }
+
+        //index views by pile index so refreshUI can find the dirty ones
+        for (PileView v : new PileView[]{stockPileView, reservePileView, wastePileView}) pileViews[v.getPile().getIndex()] = v;
+        for (PileView v : foundationViews) pileViews[v.getPile().getIndex()] = v;
+        for (PileView v : tableauViews) pileViews[v.getPile().getIndex()] = v;
 
-        stockView.getChildren().add(model.getStock().getView());
-        reserveView.getChildren().add(model.getReserve().getView());
-        wasteView.getChildren().add(model.getWaste().getView());
+        enableDragDrop(); //handlers stay registered, the views are never replaced
+    }
+
+    private void startGameUI() //initialize game UI
+    {
+        model.startGame();
+
+        if (board != null) { //one canvas draws the whole board
+            root.setCenter(board);
+            board.render();
+            refreshUI();
+            return;
+        }
 
         VBox stockBox = new VBox(5, new Label("Stock"), stockView);
         VBox wasteBox = new VBox(5, new Label("Waste"), wasteView);
@@ -86,7 +156,7 @@ public class CanfieldGUI extends Application
         for (VBox box : new VBox[]{stockBox, wasteBox, reserveBox})
         {
             Label label = (Label) box.getChildren().get(0);
-            label.setTextFill(javafx.scene.paint.Color.WHITE);
+            label.setTextFill(Color.WHITE);
             label.setFont(Font.font("Arial", FontWeight.BOLD, 14));
             box.setAlignment(Pos.CENTER);
         }
@@ -96,22 +166,6 @@ public class CanfieldGUI extends Application
         leftRow.setAlignment(Pos.TOP_LEFT);
         leftRow.setPadding(new Insets(20));
 
-        //foundations
-        for (int i = 0; i < model.getFoundations().size(); i++)
-        {
-            var foundation = model.getFoundations().get(i);
-            foundation.getView().setId("foundation" + i);
-            foundationBox.getChildren().add(foundation.getView());
-        }
-
-        //tableaus
-        for (int i = 0; i < model.getTableaus().size(); i++)
-        {
-            var tableau = model.getTableaus().get(i);
-            tableau.getView().setId("tableau" + i);
-            tableauBox.getChildren().add(tableau.getView());
-        }
-
         foundationBox.setAlignment(Pos.CENTER);
         tableauBox.setAlignment(Pos.CENTER);
 
@@ -120,14 +174,18 @@ public class CanfieldGUI extends Application
 
         root.setCenter(gameLayout);
         root.setStyle("-fx-background-color: #006400;");
-        scoreLabel.setText("Score: " + model.getScore());
+        refreshUI();
 
-        enableDragDrop();
+        //snapshot the drag images of the dealt cards while the player looks at the board
+        List<CardView> dealt = new ArrayList<>();
+        for (int i = 0; i < PlayingField.PILE_COUNT; i++)
+            if (model.getPile(i).isFaceUp()) for (Card c : model.getPile(i).getCards()) dealt.add(CardView.of(c));
+        DragImageCache.warm(dealt);
 
         //Stock click to draw 3 cards into Waste
         stockView.setOnMouseClicked(e -> {
             model.drawFromStockRuleOf3();
-            refreshUI();
+            playerMoved();
         });
     }
 
@@ -191,13 +249,13 @@ public class CanfieldGUI extends Application
                 PlayingField pf = getPlayingFieldInstance(); //get model instance
                 CardPile sourcePile = pf.getSelectedPile(); //get source pile
                 Card draggedCard = pf.getSelectedCard(); //get dragged card
-                CardPile targetPile = pf.getPileForView(node); //get target pile
+                CardPile targetPile = pileForView(node); //get target pile
 
                 if (sourcePile != null && targetPile != null && draggedCard != null) //valid move
                 {
                     //attempt move
-                    boolean moved = pf.moveCard(sourcePile, targetPile);
-                    if (moved) refreshUI(); //refresh UI if moved
+                    boolean moved = pf.moveCards(sourcePile, targetPile) > 0; //the top card, or as much of a run as fits
+                    if (moved) playerMoved(); //refresh UI if moved
                 }
 
                 event.setDropCompleted(true);
@@ -205,36 +263,38 @@ public class CanfieldGUI extends Application
             event.consume();
         });
     }
-    //Refresh UI after moves
-    private void refreshUI()
+    private static CardPile pileForView(javafx.scene.Node node) //get pile by its view
     {
-        foundationBox.getChildren().clear();
-        tableauBox.getChildren().clear();
+        return node instanceof PileView ? ((PileView) node).getPile() : null;
+    }
 
-        for (int i = 0; i < model.getFoundations().size(); i++) //foundation views
-        {
-            var foundation = model.getFoundations().get(i);
-            foundation.getView().setId("foundation" + i);//set ID
-            foundationBox.getChildren().add(foundation.getView());//add to box
-        }
+    private void playerMoved() //after a move or draw: auto-play the whole cascade, then one refresh
+    {
+        if (autoPlay.isSelected()) model.autoPlay();
+        refreshUI();
+    }
 
-        for (int i = 0; i < model.getTableaus().size(); i++)//tableau views
-        {
-            var tableau = model.getTableaus().get(i);
-            tableau.getView().setId("tableau" + i);//set ID
-            tableauBox.getChildren().add(tableau.getView());
+    //Refresh UI after moves: patch only the piles the model marked as changed
+    private void refreshUI()
+    {
+        hints.cancel(); //the position changed, an old hint would be wrong
+        hintLabel.setText("");
+        if (board != null) board.refresh(); //canvas mode redraws if anything changed
+        else {
+            int dirty = model.takeDirtyPiles();
+            for (int i = 0; i < PlayingField.PILE_COUNT; i++)
+                if ((dirty & (1 << i)) != 0) pileViews[i].update();
         }
 
-        stockView.getChildren().clear();
-        reserveView.getChildren().clear();
-        wasteView.getChildren().clear();
-
-        stockView.getChildren().add(model.getStock().getView()); //stockView
-        reserveView.getChildren().add(model.getReserve().getView()); //reserveView
-        wasteView.getChildren().add(model.getWaste().getView()); //wasteView
+        scoreLabel.setText("Score: " + model.getScore() + "   Deal #" + Long.toUnsignedString(model.getDealId())); //update score
+    }
 
-        scoreLabel.setText("Score: " + model.getScore()); //update score
-        enableDragDrop(); //re-enable drag/drop
+    @Override
+    public void stop() //drag start and hint latency on exit
+    {
+        System.out.println(DragImageCache.latencyReport());
+        System.out.println("hint " + hints.getLatency().summary());
+        hints.close();
     }
 
     public static void main(String[] args) { launch(args); }
@@ -1,90 +1,38 @@
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.text.Text;
-import javafx.scene.layout.StackPane;
-import javafx.scene.text.Font;
-import javafx.scene.input.ClipboardContent;
-import javafx.scene.input.Dragboard;
-import javafx.scene.input.TransferMode;
-import javafx.scene.image.WritableImage;
-import javafx.scene.SnapshotParameters;
-
-public class Card 
+//immutable card identity. there are exactly 52, shared by every game; face up/down belongs to the pile
+public final class Card 
 {
+    private static final Suit[] SUITS = Suit.values();
+    private static final Card[] DECK = new Card[52]; //by ordinal
+
+    static 
+    {
+        for (int i = 0; i < DECK.length; i++) DECK[i] = new Card(SUITS[i / 13], i % 13 + 1, i);
+    }
+
     private final Suit suit;
     private final int rank;
-    private boolean faceUp;
-    private StackPane view;
+    private final int ordinal;
 
-    public Card(Suit suit, int rank) //constructor
+    private Card(Suit suit, int rank, int ordinal) //constructor
     {
         this.suit = suit;
         this.rank = rank;
-        this.faceUp = false;
-        this.view = createView();
+        this.ordinal = ordinal;
     }
 
+    public static Card of(Suit suit, int rank) { return DECK[ordinal(suit, rank)]; }
+    public static Card byOrdinal(int ordinal) { return DECK[ordinal]; }
+
     public Suit getSuit() { return suit; }
     public int getRank() { return rank; }
-    public boolean isFaceUp() { return faceUp; }
-    public StackPane getView() { return view; }
-
-    public void setFaceUp(boolean faceUp) //set face up/down
-    {
-        this.faceUp = faceUp;
-        updateView();
-    }
-
-    private StackPane createView() //create card view
-    {
-        StackPane stack = new StackPane();
-        stack.setUserData(this);
-        updateView();
-
-        // Drag start
-        stack.setOnDragDetected(event -> {
-            PlayingField pf = CanfieldGUI.getPlayingFieldInstance();
-            if (pf != null && faceUp) {
-                pf.setSelectedCard(this);
-                pf.setSelectedPile(pf.getPileForView(view));
-
-                Dragboard db = stack.startDragAndDrop(TransferMode.MOVE);
-                ClipboardContent content = new ClipboardContent();
-                content.putString(""); //placeholder
-                db.setContent(content);
-
-                WritableImage snapshot = stack.snapshot(new SnapshotParameters(), null);
-                db.setDragView(snapshot);
-            }
-            event.consume();
-        });
-
-        return stack;
-    }
-
-    protected void updateView() //update card view
-    {
-        if (view == null) view = new StackPane();
-        view.getChildren().clear();
 
-        Rectangle rect = new Rectangle(80, 110);
-        rect.setArcWidth(15);
-        rect.setArcHeight(15);
-        rect.setStroke(Color.BLACK);
-
-        if (faceUp) {
-            rect.setFill(Color.WHITE);
-            Text label = new Text(rankToString() + "\n" + suitToString());
-            label.setFont(Font.font(14));
-            label.setFill(suit.isRed() ? Color.RED : Color.BLACK);
-            view.getChildren().addAll(rect, label);
-        } else {
-            rect.setFill(Color.DARKGREEN);
-            view.getChildren().add(rect);
-        }
-    }
+    //card ordinal 0-51 (suit * 13 + rank - 1), used by the packed state
+    public int ordinal() { return ordinal; }
+    public static int ordinal(Suit suit, int rank) { return suit.ordinal() * 13 + rank - 1; }
+    public static Suit suitOf(int ordinal) { return SUITS[ordinal / 13]; }
+    public static int rankOf(int ordinal) { return ordinal % 13 + 1; }
 
-    private String rankToString() //A, 2-10, J, Q, K 
+    public String rankToString() //A, 2-10, J, Q, K 
     {
         return switch(rank) {
             case 1 -> "A";
@@ -95,7 +43,7 @@ public class Card
         };
     }
     
-    private String suitToString() { return suit.symbol();} //♠, ♥, ♦, ♣
+    public String suitToString() { return suit.symbol();} //♠, ♥, ♦, ♣
 
     @Override
     public String toString() {
@@ -0,0 +1,59 @@
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+//one image holding all 52 faces plus the card back, drawn once and blitted by the canvas renderer
+public final class CardAtlas 
+{
+    public static final double WIDTH = 80;
+    public static final double HEIGHT = 110;
+    public static final int BACK = 52; //atlas slot of the card back
+
+    private static Image atlas;
+
+    private CardAtlas() {}
+
+    public static Image get() //build on first use (must be on the FX thread)
+    {
+        if (atlas == null) atlas = build();
+        return atlas;
+    }
+
+    //draw card ordinal (or BACK) with its top left corner at x, y
+    public static void draw(GraphicsContext gc, int slot, double x, double y)
+    {
+        gc.drawImage(get(), slot * WIDTH, 0, WIDTH, HEIGHT, x, y, WIDTH, HEIGHT);
+    }
+
+    private static Image build()
+    {
+        Canvas canvas = new Canvas(WIDTH * 53, HEIGHT);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFont(Font.font(14));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setStroke(Color.BLACK);
+
+        for (int slot = 0; slot <= BACK; slot++)
+        {
+            double x = slot * WIDTH;
+            gc.setFill(slot == BACK ? Color.BLUE : Color.WHITE); //blue like the stock
+            gc.fillRoundRect(x + 0.5, 0.5, WIDTH - 1, HEIGHT - 1, 15, 15);
+            gc.strokeRoundRect(x + 0.5, 0.5, WIDTH - 1, HEIGHT - 1, 15, 15);
+            if (slot == BACK) continue;
+
+            Card card = Card.byOrdinal(slot);
+            gc.setFill(card.getSuit().isRed() ? Color.RED : Color.BLACK);
+            gc.fillText(card.rankToString() + "\n" + card.suitToString(), x + WIDTH / 2, HEIGHT / 2);
+        }
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        return canvas.snapshot(params, null);
+    }
+}
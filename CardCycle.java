@@ -0,0 +1,127 @@
+//the stock and the waste as one ring of cards in draw order. the first cursor cards are the waste
+//(bottom to top), the rest is the stock (top first). a rule-of-3 draw moves the cursor forward and a
+//redeal puts it back to 0, so cards never get copied from one pile to the other.
+//Stock and Waste are the two views of it the rest of the game sees
+public class CardCycle
+{
+    private static final int CAPACITY = 64; //power of two, room for the whole deck
+    private static final int MASK = CAPACITY - 1;
+
+    private final Card[] ring = new Card[CAPACITY];
+    private int head; //ring slot of the first card in draw order
+    private int size;
+    private int cursor; //cards drawn so far, the waste size
+    private int passes = 1; //times through the stock, this one included
+    private int maxPasses = 0; //0 = turn the waste over as often as you like
+    private CardPile stock, waste; //told when the cursor moves
+
+    void setPiles(CardPile stock, CardPile waste)
+    {
+        this.stock = stock;
+        this.waste = waste;
+    }
+
+    Card at(int i) { return ring[(head + i) & MASK]; } //i-th card in draw order
+    private void set(int i, Card c) { ring[(head + i) & MASK] = c; }
+
+    public int wasteSize() { return cursor; }
+    public int stockSize() { return size - cursor; }
+    public int getPasses() { return passes; }
+    public int getMaxPasses() { return maxPasses; }
+    public void setPasses(int passes) { this.passes = passes; }
+    public void setMaxPasses(int maxPasses) { this.maxPasses = maxPasses; }
+    public boolean canRedeal() { return maxPasses == 0 || passes < maxPasses; }
+
+    //cursor moves, both piles change
+    public void draw(int n) { cursor += n; moved(); }
+    public void undraw(int n) { cursor -= n; moved(); }
+
+    public void redeal()
+    {
+        cursor = 0;
+        passes++;
+        moved();
+    }
+
+    public void unredeal(int wasteSize)
+    {
+        cursor = wasteSize;
+        passes--;
+        moved();
+    }
+
+    private void moved()
+    {
+        if (stock != null) stock.changed();
+        if (waste != null) waste.changed();
+    }
+
+    //single cards on and off either pile (dealing, playing from the waste, undo)
+    void pushStock(Card c) { insert(cursor, c); }
+    Card popStock() { return cursor == size ? null : remove(cursor); }
+
+    void pushWaste(Card c)
+    {
+        insert(cursor, c);
+        cursor++;
+    }
+
+    Card popWaste()
+    {
+        if (cursor == 0) return null;
+        return remove(--cursor);
+    }
+
+    void clearStock()
+    {
+        for (int i = cursor; i < size; i++) set(i, null);
+        size = cursor;
+    }
+
+    void clearWaste()
+    {
+        for (int i = 0; i < cursor; i++) set(i, null);
+        head = (head + cursor) & MASK;
+        size -= cursor;
+        cursor = 0;
+    }
+
+    void shuffleStock(long dealId) //Fisher-Yates over the stock from the bottom, like a list of it would be
+    {
+        int n = size - cursor;
+        for (int k = n - 1; k > 0; k--) {
+            int j = SplitMix.below(dealId, k, k + 1);
+            int a = size - 1 - k, b = size - 1 - j; //bottom-first index k is draw order size - 1 - k
+            Card t = at(a);
+            set(a, at(b));
+            set(b, t);
+        }
+    }
+
+    private void insert(int i, Card c) //open a gap at i by shifting the shorter side
+    {
+        if (i < size - i) {
+            head = (head - 1) & MASK;
+            for (int k = 0; k < i; k++) set(k, at(k + 1));
+        } else {
+            for (int k = size; k > i; k--) set(k, at(k - 1));
+        }
+        set(i, c);
+        size++;
+    }
+
+    private Card remove(int i) //close the gap at i from the shorter side
+    {
+        Card c = at(i);
+        if (i < size - 1 - i) {
+            for (int k = i; k > 0; k--) set(k, at(k - 1));
+            set(0, null);
+            head = (head + 1) & MASK;
+        } else {
+            for (int k = i; k < size - 1; k++) set(k, at(k + 1));
+            set(size - 1, null);
+        }
+        size--;
+        return c;
+    }
+}
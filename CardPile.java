@@ -1,21 +1,17 @@
 import java.util.ArrayList;
 import java.util.List;
-import javafx.scene.layout.StackPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 
 public abstract class CardPile 
 {
     protected final List<Card> cards = new ArrayList<>();
     protected final String name;
-    protected final StackPane view; //gui view
+    private int index = -1; //pile index in the PlayingField (PlayingField.STOCK, ...)
+    private PileListener listener; //view observing this pile (null when headless)
 
     //constructor
     public CardPile(String name) 
     {
         this.name = name;
-        this.view = new StackPane();
-        initializeView();
     }
 
     //add card to pile
@@ -23,7 +19,7 @@ public abstract class CardPile
     {
         if (card != null) {
             cards.add(card);
-            updateView();
+            changed();
         }
     }
 
@@ -32,45 +28,48 @@ public abstract class CardPile
     {
         if (cards.isEmpty()) return null;
         Card removed = cards.remove(cards.size() - 1);
-        updateView();
+        changed();
         return removed;
     }
 
+    //move the top count cards onto another pile as one block: one range copy, one change per pile
+    public void moveTopTo(CardPile to, int count)
+    {
+        if (count == 1) { //the only case for the stock and waste, which keep their cards elsewhere
+            to.addCard(removeTopCard());
+            return;
+        }
+        List<Card> run = cards.subList(cards.size() - count, cards.size());
+        to.cards.addAll(run);
+        run.clear();
+        to.changed();
+        changed();
+    }
+
+    //remove all cards from pile
+    public void clear()
+    {
+        cards.clear();
+        changed();
+    }
+
     public boolean isEmpty() { return cards.isEmpty();}
     public int size() { return cards.size();}
     public Card topCard() { return cards.isEmpty() ? null : cards.get(cards.size() - 1);}
     public List<Card> getCards() { return cards; }
+    public boolean isFaceUp() { return true; } //face state of the cards in this pile
     public String getName() { return name; }
-    public StackPane getView() { return view; }
-    
-    //initialize pile view (empty)
-    protected void initializeView() 
-    {
-        view.getChildren().clear();
-        Rectangle placeholder = new Rectangle(80, 110);
-        placeholder.setArcWidth(15);
-        placeholder.setArcHeight(15);
-        placeholder.setFill(Color.LIGHTGRAY);
-        placeholder.setStroke(Color.BLACK);
-        view.getChildren().add(placeholder);
-    }
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
 
-    //update pile view with stacked cards
-    protected void updateView() 
+    //observer support (views register here, the model never depends on them)
+    public PileListener getListener() { return listener; }
+    public void setListener(PileListener listener) { this.listener = listener; }
+
+    //notify the listener that the pile changed
+    protected void changed()
     {
-        view.getChildren().clear();
-        if (cards.isEmpty()) {
-            initializeView();
-        } else {
-            double offset = 20; //vertical offset between stacked cards
-            for (int i = 0; i < cards.size(); i++) {
-                Card c = cards.get(i);
-                c.setFaceUp(true);
-                StackPane cardView = c.getView();
-                cardView.setTranslateY(i * offset); //stack with offset
-                view.getChildren().add(cardView);
-            }
-        }
+        if (listener != null) listener.pileChanged(this);
     }
 
     //abstract method each pile must implement
@@ -0,0 +1,80 @@
+import javafx.scene.Parent;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.Dragboard;
+import javafx.scene.input.TransferMode;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+public class CardView extends StackPane
+{
+    private static final CardView[] pool = new CardView[52]; //one view per card identity, by ordinal
+
+    private final Card card;
+    private final Rectangle rect = new Rectangle(80, 110);
+    private final Text label;
+    private boolean shownFaceUp;
+
+    public static CardView of(Card card) //get (or create) the view of a card
+    {
+        CardView view = pool[card.ordinal()];
+        if (view == null) view = pool[card.ordinal()] = new CardView(card);
+        return view;
+    }
+
+    private CardView(Card card) //constructor
+    {
+        this.card = card;
+        setUserData(card);
+
+        rect.setArcWidth(15);
+        rect.setArcHeight(15);
+        rect.setStroke(Color.BLACK);
+        label = new Text(card.rankToString() + "\n" + card.suitToString());
+        label.setFont(Font.font(14));
+        label.setFill(card.getSuit().isRed() ? Color.RED : Color.BLACK);
+        getChildren().addAll(rect, label);
+        shownFaceUp = true;
+        show(false);
+
+        // Drag start
+        setOnDragDetected(event -> {
+            long t0 = System.nanoTime();
+            PlayingField pf = CanfieldGUI.getPlayingFieldInstance();
+            CardPile pile = owningPile();
+            if (pf != null && pile != null && pile.isFaceUp()) {
+                pf.setSelectedCard(card);
+                pf.setSelectedPile(pile);
+
+                Dragboard db = startDragAndDrop(TransferMode.MOVE);
+                ClipboardContent content = new ClipboardContent();
+                content.putString(""); //placeholder
+                db.setContent(content);
+
+                db.setDragView(DragImageCache.imageFor(this));
+                DragImageCache.recordDragStart(System.nanoTime() - t0);
+            }
+            event.consume();
+        });
+    }
+
+    public Card getCard() { return card; }
+    public boolean isShowingFaceUp() { return shownFaceUp; }
+
+    private CardPile owningPile() //pile whose view currently shows this card
+    {
+        for (Parent p = getParent(); p != null; p = p.getParent())
+            if (p instanceof PileView) return ((PileView) p).getPile();
+        return null;
+    }
+
+    public void show(boolean faceUp) //show the face or the back, only touches the nodes when it changes
+    {
+        if (faceUp == shownFaceUp) return;
+        shownFaceUp = faceUp;
+        rect.setFill(shownFaceUp ? Color.WHITE : Color.DARKGREEN);
+        label.setVisible(shownFaceUp);
+    }
+}
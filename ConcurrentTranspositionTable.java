@@ -0,0 +1,52 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//lock-free open addressing set of 64-bit position hashes shared by solver threads
+public class ConcurrentTranspositionTable 
+{
+    public static final int ADDED = 0, SEEN = 1, FULL = 2; //insert results
+
+    private final AtomicLongArray slots; //0 = empty slot
+    private final int mask;
+    private final long limit; //reported full at 3/4 capacity
+    private final LongAdder count = new LongAdder();
+
+    public ConcurrentTranspositionTable(int bits)
+    {
+        slots = new AtomicLongArray(1 << bits);
+        mask = (1 << bits) - 1;
+        limit = (1L << bits) / 4 * 3;
+    }
+
+    //add hash to the table: ADDED, SEEN if it was already there (claimed by this or another thread),
+    //or FULL if no slot was left. workers only check isFull now and then, so between checks they can
+    //fill every slot and a probe that went round the table for ever would never come back
+    public int insert(long hash)
+    {
+        if (hash == 0) hash = 1;
+        int i = (int) (hash ^ (hash >>> 32)) & mask;
+        for (int probes = 0; probes <= mask; ) {
+            long h = slots.get(i);
+            if (h == hash) return SEEN;
+            if (h == 0) {
+                if (slots.compareAndSet(i, 0, hash)) {
+                    count.increment();
+                    return ADDED;
+                }
+                continue; //lost the race for this slot, look at it again
+            }
+            i = (i + 1) & mask;
+            probes++;
+        }
+        return FULL;
+    }
+
+    public long size() { return count.sum(); }
+    public boolean isFull() { return count.sum() >= limit; }
+
+    public void clear()
+    {
+        for (int i = 0; i < slots.length(); i++) slots.set(i, 0);
+        count.reset();
+    }
+}
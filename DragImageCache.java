@@ -0,0 +1,81 @@
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javafx.application.Platform;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+
+//drag images by card ordinal and face state, so starting a drag is a lookup instead of a snapshot.
+//bounded LRU, filled on first drag or warmed a few cards per FX pulse.
+//-Dcanfield.noDragCache=true snapshots every drag like before, to compare the latency report
+public final class DragImageCache 
+{
+    private static final int CAPACITY = Integer.getInteger("canfield.dragCacheSize", 104); //every face up and down
+    private static final boolean ENABLED = !Boolean.getBoolean("canfield.noDragCache");
+    private static final int WARM_BATCH = 4; //snapshots per pulse while warming
+
+    private static final Map<Integer, Image> images = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Image> eldest) { return size() > CAPACITY; }
+    };
+    private static final ArrayDeque<CardView> warmQueue = new ArrayDeque<>();
+
+    //drag start latency
+    private static long drags;
+    private static long totalNanos;
+    private static long maxNanos;
+
+    private DragImageCache() {}
+
+    public static Image imageFor(CardView view) //FX thread only
+    {
+        if (!ENABLED) return snapshot(view);
+        Integer key = key(view);
+        Image image = images.get(key);
+        if (image == null) {
+            image = snapshot(view);
+            images.put(key, image);
+        }
+        return image;
+    }
+
+    //snapshot these cards a few per pulse, so their first drag is already a cache hit
+    public static void warm(Collection<CardView> views)
+    {
+        if (!ENABLED) return;
+        boolean idle = warmQueue.isEmpty();
+        warmQueue.addAll(views);
+        if (idle) Platform.runLater(DragImageCache::warmBatch);
+    }
+
+    private static void warmBatch()
+    {
+        for (int i = 0; i < WARM_BATCH && !warmQueue.isEmpty(); i++) {
+            CardView view = warmQueue.poll();
+            images.computeIfAbsent(key(view), k -> snapshot(view));
+        }
+        if (!warmQueue.isEmpty()) Platform.runLater(DragImageCache::warmBatch);
+    }
+
+    private static Integer key(CardView view)
+    {
+        return view.getCard().ordinal() * 2 + (view.isShowingFaceUp() ? 1 : 0);
+    }
+
+    private static Image snapshot(CardView view) { return view.snapshot(new SnapshotParameters(), null); }
+
+    //measurement hook, called by the drag handlers with the time from event to drag started
+    public static void recordDragStart(long nanos)
+    {
+        drags++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public static String latencyReport()
+    {
+        return String.format("drag start (%s): %d drags, avg %.3f ms, max %.3f ms, %d cached images",
+                ENABLED ? "cached" : "snapshot", drags, drags == 0 ? 0 : totalNanos / 1e6 / drags, maxNanos / 1e6, images.size());
+    }
+}
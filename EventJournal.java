@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+//append-only log of game events in memory-mapped segment files (events-00000000.log, ...).
+//appends claim a slot with one atomic add and write straight into the mapping; a background
+//thread forces the written pages to disk every few milliseconds (group commit), so no move waits for the disk.
+//a process crash loses nothing that was appended, an OS crash at most the last flush interval
+public class EventJournal implements AutoCloseable
+{
+    //event kinds
+    public static final int START = 1; //value = deal ID
+    public static final int MOVE = 2; //value = packed Move
+    public static final int DRAW = 3;
+    public static final int UNDO = 4;
+    public static final int END = 5;
+
+    //event layout: session key, value, kind. the kind is written last and 0 means not written (end of log)
+    public static final int EVENT = 24;
+
+    //the kind is stored with release and read by the flusher with acquire, so an event whose kind it sees is all there
+    private static final VarHandle KIND = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    public interface Handler { void event(long seq, long session, int kind, long value); }
+
+    private final Path dir;
+    private final int eventsPerSegment;
+    private final ConcurrentHashMap<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+    private final AtomicLong next; //sequence number of the next event
+    private volatile long flushed; //every event below this is on disk
+    private volatile boolean closed;
+    private final Thread flusher;
+    private volatile Segment current = new Segment(-1, null); //last segment appended to, saves the map lookup
+
+    private record Segment(long index, MappedByteBuffer buf) {}
+
+    public EventJournal(Path dir, int segmentBytes, long flushMillis) throws IOException //opens or creates, appends after the last event
+    {
+        this.dir = dir;
+        this.eventsPerSegment = segmentBytes / EVENT;
+        Files.createDirectories(dir);
+        next = new AtomicLong(end(dir, eventsPerSegment));
+        flushed = next.get();
+        flusher = new Thread(() -> {
+            while (!closed) {
+                try {
+                    Thread.sleep(flushMillis);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                flush();
+            }
+        }, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public long position() { return next.get(); } //sequence number the next event will get
+    public long flushed() { return flushed; }
+
+    public long append(long session, int kind, long value) //returns the event's sequence number
+    {
+        long seq = next.getAndIncrement();
+        long index = seq / eventsPerSegment;
+        Segment cur = current;
+        MappedByteBuffer seg;
+        if (cur.index() == index) seg = cur.buf();
+        else current = new Segment(index, seg = segment(index));
+        int at = (int) (seq % eventsPerSegment) * EVENT;
+        seg.putLong(at, session);
+        seg.putLong(at + 8, value);
+        KIND.setRelease(seg, at + 16, kind);
+        return seq;
+    }
+
+    //force everything appended so far to disk. a sequence number is claimed before its event is
+    //written, so this stops at the first event still being written; the rest goes with the next flush
+    public synchronized void flush()
+    {
+        long upTo = written(flushed, next.get());
+        if (upTo == flushed) return;
+        long first = flushed / eventsPerSegment, last = (upTo - 1) / eventsPerSegment;
+        for (long s = first; s <= last; s++) {
+            MappedByteBuffer seg = segments.get(s);
+            if (seg != null) seg.force();
+            if (s < last) segments.remove(s); //full and on disk, let the mapping go
+        }
+        flushed = upTo;
+        segment(last + 1); //map the next segment now, not on some move's time
+    }
+
+    private long written(long from, long to) //first sequence number in from..to whose event is not written yet, or to
+    {
+        long seq = from;
+        while (seq < to) {
+            MappedByteBuffer seg = segments.get(seq / eventsPerSegment);
+            if (seg == null) return seq; //its writer has not mapped the segment yet
+            long end = Math.min(to, (seq / eventsPerSegment + 1) * eventsPerSegment);
+            for (; seq < end; seq++)
+                if ((int) KIND.getAcquire(seg, (int) (seq % eventsPerSegment) * EVENT + 16) == 0) return seq;
+        }
+        return to;
+    }
+
+    public void deleteBefore(long seq) throws IOException //drop whole segments that only hold events below seq
+    {
+        for (long s = seq / eventsPerSegment - 1; s >= 0; s--) {
+            segments.remove(s);
+            if (!Files.deleteIfExists(file(dir, s))) break;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        flusher.interrupt();
+        flush();
+    }
+
+    private MappedByteBuffer segment(long index)
+    {
+        MappedByteBuffer seg = segments.get(index);
+        return seg != null ? seg : segments.computeIfAbsent(index, i -> {
+            try (FileChannel ch = FileChannel.open(file(dir, i), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return ch.map(FileChannel.MapMode.READ_WRITE, 0, (long) eventsPerSegment * EVENT);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static Path file(Path dir, long index) { return dir.resolve(String.format("events-%08d.log", index)); }
+
+    //call the handler for every event from fromSeq on, returns the sequence number after the last one
+    public static long replay(Path dir, int segmentBytes, long fromSeq, Handler handler) throws IOException
+    {
+        int perSegment = segmentBytes / EVENT;
+        long seq = fromSeq;
+        while (true) {
+            Path f = file(dir, seq / perSegment);
+            if (!Files.exists(f)) return seq;
+            MappedByteBuffer seg;
+            try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+                seg = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(ch.size(), (long) perSegment * EVENT));
+            }
+            for (int at = (int) (seq % perSegment) * EVENT; at + EVENT <= seg.limit(); at += EVENT, seq++) {
+                int kind = seg.getInt(at + 16);
+                if (kind == 0) return seq; //never written: end of the log
+                handler.event(seq, seg.getLong(at), kind, seg.getLong(at + 8));
+            }
+            if (seg.limit() < perSegment * EVENT) return seq; //short file
+        }
+    }
+
+    private static long end(Path dir, int perSegment) throws IOException //sequence number after the last event on disk
+    {
+        long last = -1;
+        try (var files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                String name = f.getFileName().toString();
+                if (name.startsWith("events-") && name.endsWith(".log"))
+                    last = Math.max(last, Long.parseLong(name.substring(7, name.length() - 4)));
+            }
+        }
+        long end = Math.max(last, 0) * perSegment;
+        for (long s = last; s >= 0 && Files.exists(file(dir, s)); s--) { //the newest segments can be mapped ahead and still empty
+            long e = replay(dir, perSegment * EVENT, s * perSegment, (seq, session, kind, value) -> {});
+            if (e > s * perSegment) return e;
+            end = s * perSegment;
+        }
+        return end;
+    }
+}
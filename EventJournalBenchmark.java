@@ -0,0 +1,85 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+//plays random games through a journaled SessionManager, then measures replay and recovery in events/s
+//usage: java EventJournalBenchmark [sessions] [actionsPerSession] [dir]
+public class EventJournalBenchmark 
+{
+    public static void main(String[] args) throws IOException
+    {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int actions = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        Path dir = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("canfield-journal");
+        clear(dir);
+
+        //record
+        SessionManager live = new SessionManager();
+        live.recover(dir);
+        List<GameSession> games = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) games.add(live.start(i + 1));
+        long t0 = System.nanoTime();
+        for (int a = 0; a < actions; a++) //round robin, so events of all sessions interleave like on a server
+            for (int i = 0; i < sessions; i++) {
+                long r = SplitMix.at(i, a);
+                GameSession g = games.get(i);
+                if ((r & 3) == 0) g.draw();
+                else if ((r & 31) == 1) g.undo();
+                else g.move(1 + (int) ((r >>> 8) % 10), 3 + (int) ((r >>> 16) % 8));
+            }
+        report("play + append", live.getJournalPosition(), t0);
+        live.close();
+
+        //scan only: how fast the journal itself reads back
+        long[] count = new long[1];
+        t0 = System.nanoTime();
+        long events = EventJournal.replay(dir, SessionManager.SEGMENT_BYTES, 0, (seq, session, kind, value) -> count[0]++);
+        report("raw replay", count[0], t0);
+
+        //full recovery into fresh sessions
+        SessionManager recovered = new SessionManager();
+        t0 = System.nanoTime();
+        recovered.recover(dir);
+        report("recover from the log", events, t0);
+        check(games, recovered);
+
+        //recovery from a checkpoint only replays what came after it
+        recovered.checkpoint();
+        recovered.close();
+        SessionManager fromCheckpoint = new SessionManager();
+        t0 = System.nanoTime();
+        long replayed = fromCheckpoint.recover(dir);
+        System.out.printf("recover from checkpoint: %d sessions, %d events after it, %.3fs%n",
+                fromCheckpoint.size(), replayed, (System.nanoTime() - t0) / 1e9);
+        check(games, fromCheckpoint);
+        fromCheckpoint.close();
+    }
+
+    private static void report(String what, long events, long t0)
+    {
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("%-22s %,12d events %8.3fs %8.2f M events/s%n", what, events, seconds, events / seconds / 1e6);
+    }
+
+    private static void check(List<GameSession> games, SessionManager recovered) //every game must come back exactly
+    {
+        for (GameSession g : games) {
+            GameSession r = recovered.get(g.getId());
+            if (r == null || !r.state().equals(g.state())) throw new IllegalStateException("session " + g.getId() + " differs after recovery");
+        }
+    }
+
+    private static void clear(Path dir) throws IOException //remove a previous run's journal and checkpoint
+    {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                String name = f.getFileName().toString();
+                if (name.startsWith("events-") || name.startsWith("checkpoint.")) Files.delete(f);
+            }
+        }
+    }
+}
@@ -1,59 +1,53 @@
-import javafx.scene.layout.StackPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-
 public class Foundation extends CardPile 
 {
     private Integer baseRank = null; //foundations build up by suit starting at base
+    private long next; //mask of the cards this foundation takes next, redone on every push and pop
 
     //constructor
     public Foundation(String name) 
     {
         super(name);
-        initializeView();
     }
 
-    public void setBaseRank(int r) { baseRank = r;}
+    public void setBaseRank(Integer r)
+    {
+        baseRank = r;
+        updateNext();
+    }
+
     public Integer getBaseRank() { return baseRank;}
+    public long getNext() { return next; }
 
     @Override
     public boolean canAccept(Card c) //card check (can only add cards in sequence by suit)
     {
-        if (c == null) return false;
-
-        if (cards.isEmpty()) 
-        {
-            return baseRank != null && c.getRank() == ((baseRank % 13) + 1);
-        } else {
-            Card top = topCard();
-            return c.getSuit() == top.getSuit() && c.getRank() == (top.getRank() % 13) + 1;
-        }
+        return c != null && (next >>> c.ordinal() & 1) != 0;
     }
 
     @Override
-    public StackPane getView() { return view; } //get pile view
-
-    @Override
-    protected void updateView() //base pile view (show only top card)
+    protected void changed()
     {
-        view.getChildren().clear();
-        if (cards.isEmpty()) {
-            initializeView();
-        } else {
-            Card top = topCard();
-            top.setFaceUp(true);
-            view.getChildren().add(top.getView());
-        }
+        updateNext();
+        super.changed();
     }
 
-    @Override
-    protected void initializeView() //base pile view (no cards)
+    private void updateNext() { next = RuleTables.foundation(baseRank == null ? 0 : baseRank, cards.isEmpty() ? -1 : topCard().ordinal()); }
+
+    //shared rule on card ordinals (top = -1 for an empty foundation, baseRank = 0 for none): starts at
+    //the base rank, then up by suit wrapping K -> A. see RuleTables
+    public static boolean accepts(int baseRank, int top, int card) { return (RuleTables.foundation(baseRank, top) >>> card & 1) != 0; }
+
+    //a card is safe to play up when no tableau could still want it: both cards that could go on it
+    //(rank one lower, other colour) are on foundations already. aces never take a card.
+    //built = cards on the foundation of each suit (by suit ordinal)
+    public static boolean isSafe(int baseRank, int[] built, int card)
     {
-        Rectangle placeholder = new Rectangle(80, 110);
-        placeholder.setArcWidth(15);
-        placeholder.setArcHeight(15);
-        placeholder.setFill(Color.BEIGE);
-        placeholder.setStroke(Color.BLACK);
-        view.getChildren().add(placeholder);
+        int rank = Card.rankOf(card);
+        if (rank == 1) return true;
+        int below = (rank - 1 - baseRank + 13) % 13; //position of rank - 1 on its foundation
+        boolean red = Card.suitOf(card).isRed();
+        for (int suit = 0; suit < 4; suit++)
+            if (Card.suitOf(suit * 13).isRed() != red && built[suit] <= below) return false;
+        return true;
     }
 }
@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//streams the records of a .cfr file (see GameRecordWriter) through one fixed buffer, so memory
+//stays the same however big the file is. next() loads the following game into the reader
+public class GameRecordReader implements AutoCloseable
+{
+    private final Path file;
+    private final FileChannel channel;
+    private final RuleSet rules; //the games were played under these
+    private final int header; //bytes before the first record
+    private ByteBuffer in; //unread bytes between position and limit, only grows for a record longer than itself
+    private boolean eof;
+    private long record = -1; //number of the current record
+
+    //current record
+    private long dealId;
+    private int[] moves = new int[256];
+    private int moveCount;
+
+    public GameRecordReader(Path file) throws IOException { this(file, 1 << 16); }
+
+    public GameRecordReader(Path file, int bufferBytes) throws IOException
+    {
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        in = ByteBuffer.allocateDirect(bufferBytes);
+        in.flip();
+        fill(GameRecordWriter.HEADER);
+        if (in.remaining() < GameRecordWriter.HEADER_V1 || in.getInt() != GameRecordWriter.MAGIC)
+            throw new IOException(file + " is not a game record file");
+        int version = in.getInt();
+        if (version == 1) {
+            rules = RuleSet.CLASSIC;
+            header = GameRecordWriter.HEADER_V1;
+        } else if (version == GameRecordWriter.VERSION && in.remaining() >= GameRecordWriter.HEADER - GameRecordWriter.HEADER_V1) {
+            int packed = in.get() & 0xff, passes = in.get(), reserve = in.get();
+            in.get();
+            try {
+                rules = RuleSet.unpack(packed, passes, reserve);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ": bad rules, " + e.getMessage());
+            }
+            header = GameRecordWriter.HEADER;
+        } else throw new IOException(file + ": unknown game record version " + version);
+    }
+
+    public RuleSet getRules() { return rules; }
+
+    public long getDealId() { return dealId; }
+    public int getMoveCount() { return moveCount; }
+    public int getMove(int i) { return moves[i]; } //packed Move
+    public long getRecordNumber() { return record; }
+
+    public boolean next() throws IOException //false at the end of the file
+    {
+        fill(5);
+        if (!in.hasRemaining()) return false;
+        int length = getVarint(in);
+        fill(length);
+        if (in.remaining() < length) throw new IOException(file + ": record " + (record + 1) + " is cut off");
+        dealId = in.getLong();
+        moveCount = getVarint(in);
+        if (moves.length < moveCount) moves = new int[Math.max(moveCount, moves.length * 2)];
+        for (int i = 0; i < moveCount; i++) moves[i] = GameRecordWriter.decode(getVarint(in));
+        record++;
+        return true;
+    }
+
+    //position so the following next() returns game n (0-based), using the sparse index
+    public void seek(long n) throws IOException
+    {
+        Path indexFile = GameRecordWriter.indexFile(file);
+        long offset = header, first = 0;
+        if (Files.exists(indexFile)) {
+            try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+                ByteBuffer b = ByteBuffer.allocate(8);
+                index.read(b, 0);
+                int interval = b.getInt(0);
+                long entry = Math.min(n / interval, (index.size() - 4) / 8 - 1);
+                if (entry >= 0) {
+                    b.clear();
+                    index.read(b, 4 + entry * 8);
+                    offset = b.getLong(0);
+                    first = entry * interval;
+                }
+            }
+        }
+        channel.position(offset);
+        in.clear().flip();
+        eof = false;
+        record = first - 1;
+        while (record < n - 1 && skip()) { }
+    }
+
+    private boolean skip() throws IOException //step over one record without decoding its moves
+    {
+        fill(5);
+        if (!in.hasRemaining()) return false;
+        int length = getVarint(in);
+        fill(length);
+        if (in.remaining() < length) return false;
+        in.position(in.position() + length);
+        record++;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException { channel.close(); }
+
+    private void fill(int need) throws IOException //make at least need bytes readable unless the file ends first
+    {
+        if (in.remaining() >= need || eof) return;
+        if (need > in.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(Math.max(need, in.capacity() * 2));
+            bigger.put(in);
+            in = bigger;
+        } else in.compact();
+        while (in.position() < need && !eof) if (channel.read(in) < 0) eof = true;
+        if (!eof && in.hasRemaining() && channel.read(in) < 0) eof = true; //top up while we're here
+        in.flip();
+    }
+
+    static int getVarint(ByteBuffer buf)
+    {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buf.get();
+            v |= (b & 0x7f) << shift;
+            if (b >= 0) return v;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+//streams finished games to a record file (.cfr) plus a sparse index next to it (.cfr.idx).
+//file: magic, version, the rules (packed byte, stock passes, reserve size, one spare byte), then records back to back.
+//version 1 files have no rules and were all played under RuleSet.CLASSIC
+//record: varint body length, deal ID (8 bytes), varint move count, one varint per move (see code)
+//index: records per entry, then the byte offset of every INDEX_INTERVAL-th record
+public class GameRecordWriter implements AutoCloseable
+{
+    public static final int MAGIC = 0x43465231; //"CFR1"
+    public static final int VERSION = 2;
+    public static final int HEADER = 12; //magic + version + rules
+    public static final int HEADER_V1 = 8; //magic + version
+    public static final int INDEX_INTERVAL = 1024;
+    private static final int PILES = PlayingField.PILE_COUNT;
+
+    private final FileChannel channel;
+    private final FileChannel index;
+    private final ByteBuffer out = ByteBuffer.allocateDirect(1 << 16);
+    private final ByteBuffer indexOut = ByteBuffer.allocateDirect(1 << 12);
+    private ByteBuffer body = ByteBuffer.allocate(1 << 12); //one encoded record, grows for long games
+    private long position = HEADER; //file offset of the next record
+    private long records;
+
+    public GameRecordWriter(Path file) throws IOException { this(file, RuleSet.CLASSIC); }
+
+    public GameRecordWriter(Path file, RuleSet rules) throws IOException
+    {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        index = FileChannel.open(indexFile(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        out.putInt(MAGIC).putInt(VERSION);
+        out.put((byte) rules.packed()).put((byte) rules.maxPasses()).put((byte) rules.reserveSize()).put((byte) 0);
+        indexOut.putInt(INDEX_INTERVAL);
+    }
+
+    public static Path indexFile(Path file) { return file.resolveSibling(file.getFileName() + ".idx"); }
+
+    public long getRecords() { return records; }
+
+    public void write(long dealId, int[] moves, int count) throws IOException
+    {
+        if (body.capacity() < 18 + 3 * count) body = ByteBuffer.allocate(Math.max(body.capacity() * 2, 18 + 3 * count));
+        body.clear();
+        body.putLong(dealId);
+        putVarint(body, count);
+        for (int i = 0; i < count; i++) putVarint(body, code(moves[i]));
+        body.flip();
+
+        if (records % INDEX_INTERVAL == 0) {
+            if (indexOut.remaining() < 8) drain(indexOut, index);
+            indexOut.putLong(position);
+        }
+        int length = body.remaining();
+        if (out.remaining() < 5 + length) drain(out, channel);
+        if (out.remaining() < 5 + length) { //bigger than the whole buffer, write it straight through
+            channel.write(ByteBuffer.wrap(varint(length)));
+            while (body.hasRemaining()) channel.write(body);
+        } else {
+            putVarint(out, length);
+            out.put(body);
+        }
+        position += varintSize(length) + length;
+        records++;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        drain(out, channel);
+        drain(indexOut, index);
+        channel.close();
+        index.close();
+    }
+
+    //move code: (count - 1) * 121 + from * 11 + to, so every single card move fits in one varint byte
+    public static int code(int move)
+    {
+        int count = Move.isDraw(move) || Move.isRedeal(move) ? 1 : Move.count(move);
+        return ((count - 1) * PILES + Move.from(move)) * PILES + Move.to(move);
+    }
+
+    public static int decode(int code) //draws come back as draw 3, the rules cap it at the stock size
+    {
+        int to = code % PILES, from = code / PILES % PILES, count = code / (PILES * PILES) + 1;
+        return Move.of(from, to, from == PlayingField.STOCK ? 3 : count);
+    }
+
+    static void putVarint(ByteBuffer buf, int v)
+    {
+        while ((v & ~0x7f) != 0) {
+            buf.put((byte) (v & 0x7f | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    static int varintSize(int v) { return (38 - Integer.numberOfLeadingZeros(v | 1)) / 7; }
+
+    private static byte[] varint(int v)
+    {
+        ByteBuffer b = ByteBuffer.allocate(5);
+        putVarint(b, v);
+        return Arrays.copyOf(b.array(), b.position());
+    }
+
+    private static void drain(ByteBuffer buf, FileChannel ch) throws IOException
+    {
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+        buf.clear();
+    }
+}
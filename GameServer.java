@@ -0,0 +1,159 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//headless HTTP front end for SessionManager, every request runs on its own virtual thread
+//  /start[?deal=id]                  -> new session, returns its state
+//  /move?session=s&from=p&to=p       -> pile indices as in PlayingField (STOCK = 0 ... TABLEAU + 3 = 10),
+//                                       from is the waste, the reserve or a tableau
+//  /draw?session=s  /undo?session=s  /state?session=s  /end?session=s
+//  /top[?n=10]                       -> best scores over all sessions
+//  /rank?session=s                   -> the session's score and its rank on the board (-1 = not in the top 100)
+public class GameServer 
+{
+    static
+    {
+        //replies are small, without TCP_NODELAY Nagle and delayed ACKs hold each one back ~40 ms.
+        //the JDK server reads this once, so it has to be set before the first server is created
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final SessionManager sessions;
+    private final HttpServer server;
+
+    public GameServer(SessionManager sessions, int port) throws IOException
+    {
+        this.sessions = sessions;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.setExecutor(VirtualThreads.newExecutor());
+        server.createContext("/", this::handle);
+    }
+
+    public void start() { server.start(); }
+    public void stop() { server.stop(0); }
+    public int getPort() { return server.getAddress().getPort(); }
+
+    private void handle(HttpExchange ex) throws IOException
+    {
+        String query = ex.getRequestURI().getRawQuery();
+        String path = ex.getRequestURI().getPath();
+        try {
+            if (path.equals("/start")) {
+                String deal = param(query, "deal");
+                long dealId = deal != null ? Long.parseUnsignedLong(deal) : ThreadLocalRandom.current().nextLong();
+                reply(ex, 200, sessions.start(dealId).state());
+                return;
+            }
+            if (path.equals("/top")) {
+                String n = param(query, "n");
+                reply(ex, 200, topJson(sessions.getLeaderboard().top(n != null ? Integer.parseInt(n) : 10)));
+                return;
+            }
+
+            GameSession session = sessions.get(param(query, "session"));
+            if (session == null) {
+                reply(ex, 404, "{\"error\":\"no such session\"}");
+                return;
+            }
+            switch (path) {
+                case "/move" -> {
+                    boolean ok = session.move(Integer.parseInt(param(query, "from")), Integer.parseInt(param(query, "to")));
+                    if (ok) sessions.getLeaderboard().submit(session.getKey(), session.getScore()); //only a move can set a new best
+                    reply(ex, ok ? 200 : 409, ok ? session.state() : "{\"error\":\"illegal move\"}");
+                }
+                case "/draw" -> {
+                    session.draw();
+                    reply(ex, 200, session.state());
+                }
+                case "/undo" -> {
+                    boolean ok = session.undo();
+                    reply(ex, ok ? 200 : 409, ok ? session.state() : "{\"error\":\"nothing to undo\"}");
+                }
+                case "/state" -> reply(ex, 200, session.state());
+                case "/rank" -> {
+                    int score = session.getScore();
+                    reply(ex, 200, "{\"score\":" + score + ",\"rank\":" + sessions.getLeaderboard().rank(score) + "}");
+                }
+                case "/end" -> reply(ex, 200, "{\"ended\":" + sessions.end(session.getId()) + "}");
+                default -> reply(ex, 404, "{\"error\":\"unknown request\"}");
+            }
+        } catch (RuntimeException e) { //bad or missing parameters
+            reply(ex, 400, "{\"error\":\"bad request\"}");
+        }
+    }
+
+    private static String topJson(List<Leaderboard.Entry> top)
+    {
+        StringBuilder sb = new StringBuilder("{\"top\":[");
+        for (int i = 0; i < top.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"session\":\"").append(Long.toHexString(top.get(i).session())).append("\",\"score\":").append(top.get(i).score()).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    static String param(String query, String name) //value of name=value in a query string, null if absent
+    {
+        if (query == null) return null;
+        int i = 0;
+        while (i < query.length()) {
+            int amp = query.indexOf('&', i);
+            if (amp < 0) amp = query.length();
+            int eq = query.indexOf('=', i);
+            if (eq > i && eq < amp && query.regionMatches(i, name, 0, name.length()) && eq - i == name.length())
+                return query.substring(eq + 1, amp);
+            i = amp + 1;
+        }
+        return null;
+    }
+
+    private static void reply(HttpExchange ex, int status, String body) throws IOException
+    {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    //usage: java GameServer [port] [maxLiveSessions] [offHeapMB] [journalDir]
+    public static void main(String[] args) throws IOException
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int maxLive = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+        long offHeap = (args.length > 2 ? Long.parseLong(args[2]) : 256) << 20;
+        SessionManager sessions = new SessionManager(maxLive, offHeap);
+        if (args.length > 3) { //crash recovery: replay what the last run left, then checkpoint every minute
+            long t0 = System.nanoTime();
+            long replayed = sessions.recover(Path.of(args[3]));
+            System.out.printf("recovered %d sessions from %d events in %.2fs%n", sessions.size(), replayed, (System.nanoTime() - t0) / 1e9);
+            ScheduledExecutorService checkpoints = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "checkpoint");
+                t.setDaemon(true);
+                return t;
+            });
+            checkpoints.scheduleWithFixedDelay(() -> {
+                try {
+                    sessions.checkpoint();
+                } catch (IOException e) {
+                    System.err.println("checkpoint failed: " + e);
+                }
+            }, 1, 1, TimeUnit.MINUTES);
+            Runtime.getRuntime().addShutdownHook(new Thread(sessions::close));
+        }
+        GameServer server = new GameServer(sessions, port);
+        server.start();
+        System.out.println("Canfield server on http://127.0.0.1:" + server.getPort()
+                + (VirtualThreads.available() ? " (virtual threads)" : " (platform threads)"));
+    }
+}
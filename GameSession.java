@@ -0,0 +1,230 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+//one hosted game. all access goes through the session's own monitor, so sessions never share a lock.
+//an idle session can be parked in an OffHeapStore; the next request rehydrates it transparently.
+//with an EventJournal every action is logged after it is played, so a crash can be replayed
+public class GameSession 
+{
+    //saved record (parked slot and checkpoint): packed state, deal ID, journal length and cursor, journal entries
+    private static final int RECORD_HEADER = PackedState.SIZE + 8 + 4 + 4;
+
+    private final long key; //session ID as a number, the ID is its hex form
+    private final String id;
+    private final OffHeapStore store;
+    private final EventJournal events; //null = not logged
+    private PlayingField field; //null while parked
+    private volatile long parked = -1; //store handle while parked
+    private long lastSeq = -1; //sequence number of the last logged (or replayed) event
+    private volatile long lastAccessNanos = System.nanoTime();
+    private volatile boolean referenced = true; //CLOCK bit, set on every access
+
+    public GameSession(long key, long dealId, OffHeapStore store, EventJournal events) //new game, not logged until logStart
+    {
+        this(key, store, events, new PlayingField());
+        field.startGame(dealId);
+    }
+
+    private GameSession(long key, OffHeapStore store, EventJournal events, PlayingField field)
+    {
+        this.key = key;
+        this.id = Long.toHexString(key);
+        this.store = store;
+        this.events = events;
+        this.field = field;
+    }
+
+    public String getId() { return id; }
+    public long getKey() { return key; }
+    public long getLastAccessNanos() { return lastAccessNanos; }
+    public boolean isParked() { return parked >= 0; }
+
+    public synchronized boolean move(int from, int to)
+    {
+        if (!validSource(from) || !validPile(to)) return false;
+        PlayingField f = live();
+        int n = f.moveCards(f.getPile(from), f.getPile(to));
+        if (n == 0) return false;
+        log(EventJournal.MOVE, Move.of(from, to, n));
+        return true;
+    }
+
+    public synchronized void draw()
+    {
+        live().drawFromStockRuleOf3();
+        log(EventJournal.DRAW, 0);
+    }
+
+    public synchronized boolean undo()
+    {
+        if (!live().undo()) return false;
+        log(EventJournal.UNDO, 0);
+        return true;
+    }
+
+    public synchronized int getScore() { return live().getScore(); }
+
+    public synchronized String state()
+    {
+        return toJson(id, live());
+    }
+
+    //log START once the session is in the manager's map: a checkpoint that saves a journal position
+    //past START then also saves the session, and one that saves an earlier position replays START
+    synchronized void logStart() { log(EventJournal.START, live().getDealId()); }
+
+    private void log(int kind, long value) { if (events != null) lastSeq = events.append(key, kind, value); }
+
+    //recovery: a game as it was at a checkpoint, and events from the journal
+    static GameSession restore(long key, long lastSeq, ByteBuffer record, OffHeapStore store, EventJournal events)
+    {
+        GameSession s = new GameSession(key, store, events, readRecord(record));
+        s.lastSeq = lastSeq;
+        return s;
+    }
+
+    static GameSession replayStart(long key, long dealId, long seq, OffHeapStore store, EventJournal events)
+    {
+        GameSession s = new GameSession(key, store, events, new PlayingField());
+        s.field.startGame(dealId);
+        s.lastSeq = seq;
+        return s;
+    }
+
+    synchronized void replay(long seq, int kind, long value) //play a journal event again without logging it
+    {
+        if (seq <= lastSeq) return; //already in the checkpoint
+        PlayingField f = live();
+        switch (kind) {
+            case EventJournal.MOVE -> f.play((int) value);
+            case EventJournal.DRAW -> f.drawFromStockRuleOf3();
+            case EventJournal.UNDO -> f.undo();
+            default -> { }
+        }
+        lastSeq = seq;
+    }
+
+    synchronized boolean checkpoint(DataOutputStream out) throws IOException //writes a marker and the record, false if ended
+    {
+        ByteBuffer record;
+        if (field != null) {
+            record = ByteBuffer.allocate(recordSize(field));
+            writeRecord(field, record);
+        } else if (parked >= 0) { //copy the parked slot as it is
+            ByteBuffer slot = store.slot(parked);
+            record = ByteBuffer.allocate(RECORD_HEADER + 8 * slot.getInt(PackedState.SIZE + 8));
+            record.put(slot.limit(record.capacity()));
+        } else return false;
+        out.writeBoolean(true);
+        out.writeLong(key);
+        out.writeLong(lastSeq);
+        out.writeInt(record.capacity());
+        out.write(record.array());
+        return true;
+    }
+
+    private PlayingField live() //the live field, rehydrated from the store if the session was parked
+    {
+        lastAccessNanos = System.nanoTime();
+        referenced = true;
+        if (field == null) {
+            if (parked < 0) throw new IllegalStateException("session ended");
+            PlayingField f = readRecord(store.slot(parked));
+            store.free(parked);
+            parked = -1;
+            field = f;
+        }
+        return field;
+    }
+
+    //move the game into the store and drop its objects, false if already parked or the store is full
+    synchronized boolean park()
+    {
+        if (field == null) return false;
+        long handle = store.allocate(recordSize(field));
+        if (handle < 0) return false;
+        writeRecord(field, store.slot(handle));
+        parked = handle;
+        field = null;
+        return true;
+    }
+
+    synchronized void end() //ended by the player, give the slot back
+    {
+        discard();
+        log(EventJournal.END, 0);
+    }
+
+    synchronized void discard() //drop the game without logging it (replayed end)
+    {
+        if (parked >= 0) store.free(parked);
+        parked = -1;
+        field = null;
+    }
+
+    boolean clearReferenced() //CLOCK sweep: true if used since the last sweep
+    {
+        boolean was = referenced;
+        referenced = false;
+        return was;
+    }
+
+    private static int recordSize(PlayingField field) { return RECORD_HEADER + 8 * field.getJournal().recorded(); }
+
+    private static void writeRecord(PlayingField field, ByteBuffer buf)
+    {
+        MoveJournal journal = field.getJournal();
+        int recorded = journal.recorded();
+        PackedState.of(field).writeTo(buf);
+        buf.putLong(field.getDealId()).putInt(recorded).putInt(journal.size());
+        for (int i = 0; i < recorded; i++) buf.putLong(journal.get(i));
+    }
+
+    private static PlayingField readRecord(ByteBuffer buf)
+    {
+        PlayingField f = new PlayingField();
+        PackedState.readFrom(buf).restore(f);
+        f.setDealId(buf.getLong());
+        int recorded = buf.getInt(), cursor = buf.getInt();
+        long[] entries = new long[recorded];
+        buf.asLongBuffer().get(entries);
+        f.getJournal().restore(entries, recorded, cursor);
+        return f;
+    }
+
+    private static boolean validPile(int pile) { return pile >= 0 && pile < PlayingField.PILE_COUNT; }
+
+    //cards are only moved out of the waste, the reserve and the tableaus; the stock only draws
+    //and a journaled stock move would replay as a draw
+    private static boolean validSource(int pile)
+    {
+        return pile == PlayingField.WASTE || pile == PlayingField.RESERVE || (pile >= PlayingField.TABLEAU && pile < PlayingField.PILE_COUNT);
+    }
+
+    //{"session":..,"deal":..,"moves":..,"score":..,"started":..,"passes":..,"stock":n,"piles":[[card ordinals]...]}
+    //piles are waste, reserve, 4 foundations, 4 tableaus (the stock is face down, only its size is sent)
+    static String toJson(String id, PlayingField field)
+    {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"session\":\"").append(id)
+          .append("\",\"deal\":").append(Long.toUnsignedString(field.getDealId()))
+          .append(",\"moves\":").append(field.getMoves())
+          .append(",\"score\":").append(field.getScore())
+          .append(",\"started\":").append(field.isGameStarted())
+          .append(",\"passes\":").append(field.getPasses())
+          .append(",\"stock\":").append(field.getStock().size())
+          .append(",\"piles\":[");
+        for (int p = PlayingField.WASTE; p < PlayingField.PILE_COUNT; p++) {
+            if (p > PlayingField.WASTE) sb.append(',');
+            sb.append('[');
+            var cards = field.getPile(p).getCards();
+            for (int i = 0; i < cards.size(); i++) {
+                if (i > 0) sb.append(',');
+                sb.append(cards.get(i).ordinal());
+            }
+            sb.append(']');
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,26 @@
+//plays to a foundation when it can, otherwise empties the reserve, then the waste, then draws.
+//never shuffles cards between tableaus, so it cannot loop
+public class GreedyPolicy implements PlayPolicy
+{
+    @Override
+    public int choose(PlayingField field, int[] moves, int count, long random)
+    {
+        int best = -1, bestScore = 0;
+        for (int i = 0; i < count; i++)
+        {
+            int score = score(moves[i]);
+            if (score > bestScore) { best = i; bestScore = score; }
+        }
+        return best;
+    }
+
+    private static int score(int move)
+    {
+        int from = Move.from(move), to = Move.to(move);
+        if (Move.isDraw(move) || Move.isRedeal(move)) return 1;
+        if (to < PlayingField.TABLEAU) return 5; //to foundation
+        if (from == PlayingField.RESERVE) return 4;
+        if (from == PlayingField.WASTE) return 3;
+        return 0; //tableau to tableau
+    }
+}
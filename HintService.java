@@ -0,0 +1,239 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+//finds a good next move in the background (a virtual thread where available) within a time budget.
+//the search is the Solver's depth-first search scored by foundation cards; when the budget runs out
+//the best line seen so far is the answer. asking again or moving cancels the search in flight, and
+//every position along a line found is remembered, so following a hint makes the next one instant
+public class HintService implements AutoCloseable
+{
+    public static class Hint
+    {
+        private final int[] line; //best line found, packed Moves
+        private final boolean win; //the line wins the game
+        private final boolean complete; //the search finished instead of running out of time
+        private final long nodes;
+
+        Hint(int[] line, boolean win, boolean complete, long nodes)
+        {
+            this.line = line;
+            this.win = win;
+            this.complete = complete;
+            this.nodes = nodes;
+        }
+
+        public int getMove() { return line.length == 0 ? -1 : line[0]; } //-1 if there is nothing to do
+        public int[] getLine() { return line; }
+        public boolean isWin() { return win; }
+        public boolean isComplete() { return complete; }
+        public long getNodes() { return nodes; }
+
+        @Override
+        public String toString()
+        {
+            if (line.length == 0) return "no moves";
+            return Move.toString(line[0]) + (win ? " (wins in " + line.length + ")" : "");
+        }
+    }
+
+    private final ExecutorService threads = VirtualThreads.newExecutor();
+    private final LatencyHistogram latency = new LatencyHistogram(); //request to answer, cached ones included
+    private final long budgetNanos;
+    private final int tableBits;
+    private final Map<Long, Hint> known = new HashMap<>(); //position hash -> hint, current deal only
+    private long knownDeal;
+    private Search running;
+
+    public HintService() { this(200, 18); }
+
+    public HintService(long budgetMillis, int tableBits)
+    {
+        this.budgetNanos = budgetMillis * 1_000_000;
+        this.tableBits = tableBits;
+    }
+
+    public LatencyHistogram getLatency() { return latency; }
+
+    //hint for the field's current position. call on the thread that owns the field; the future
+    //completes on the search thread, or is cancelled if cancel() or another hint() comes first
+    public synchronized CompletableFuture<Hint> hint(PlayingField field)
+    {
+        long t0 = System.nanoTime();
+        cancel();
+        if (field.getDealId() != knownDeal) {
+            known.clear();
+            knownDeal = field.getDealId();
+        }
+        Hint cached = known.get(field.getHash());
+        if (cached != null) {
+            latency.record(System.nanoTime() - t0);
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        long deal = knownDeal;
+        Search search = new Search(PackedState.of(field), t0 + budgetNanos, tableBits);
+        running = search;
+        threads.execute(() -> {
+            Hint h = search.run();
+            if (h == null) return; //cancelled
+            synchronized (this) {
+                if (running == search) running = null;
+                if (knownDeal == deal) remember(search.start, h);
+            }
+            latency.record(System.nanoTime() - t0);
+            search.result.complete(h);
+        });
+        return search.result;
+    }
+
+    public synchronized void cancel() //the position changed, drop the search in flight
+    {
+        if (running == null) return;
+        running.cancelled = true;
+        running.result.cancel(false);
+        running = null;
+    }
+
+    @Override
+    public void close()
+    {
+        cancel();
+        threads.shutdownNow();
+    }
+
+    private void remember(PackedState start, Hint h) //the hint, and the rest of its line for every position on it
+    {
+        known.put(start.positionHash(), h);
+        PackedState s = start.copy();
+        int[] line = h.getLine();
+        for (int i = 0; i + 1 < line.length; i++) {
+            s.apply(line[i]);
+            known.putIfAbsent(s.positionHash(), new Hint(Arrays.copyOfRange(line, i + 1, line.length), h.isWin(), h.isComplete(), 0));
+        }
+    }
+
+    private static int score(PackedState s) //higher is better
+    {
+        int emptyTableaus = 0;
+        for (int t = PlayingField.TABLEAU; t < PlayingField.PILE_COUNT; t++) if (s.isEmpty(t)) emptyTableaus++;
+        return s.foundationCards() * 16 - s.size(PlayingField.RESERVE) * 2 + emptyTableaus;
+    }
+
+    private static final class Search
+    {
+        private final PackedState start;
+        private final long deadline;
+        private final long[] table; //visited position hashes, as in Solver
+        private final int tableMask;
+        private final MoveGenerator generator = new MoveGenerator(true);
+        private final CompletableFuture<Hint> result = new CompletableFuture<>();
+        private volatile boolean cancelled;
+
+        Search(PackedState start, long deadline, int tableBits)
+        {
+            this.start = start;
+            this.deadline = deadline;
+            this.table = new long[1 << tableBits];
+            this.tableMask = table.length - 1;
+        }
+
+        Hint run() //null if cancelled
+        {
+            PackedState[] states = { start.copy() };
+            int[][] moves = { new int[MoveGenerator.MAX_MOVES] };
+            int[] count = { generator.generate(states[0], moves[0]) };
+            int[] next = new int[1];
+            insert(start.positionHash());
+            int[] best = new int[0];
+            int bestScore = Integer.MIN_VALUE;
+            long nodes = 0, tableLimit = table.length / 4 * 3;
+
+            int depth = 0;
+            while (depth >= 0)
+            {
+                if (next[depth] == count[depth]) { depth--; continue; }
+                if (depth + 1 == states.length) {
+                    int n = states.length * 2;
+                    states = Arrays.copyOf(states, n);
+                    moves = Arrays.copyOf(moves, n);
+                    count = Arrays.copyOf(count, n);
+                    next = Arrays.copyOf(next, n);
+                }
+                if (states[depth + 1] == null) {
+                    states[depth + 1] = new PackedState();
+                    moves[depth + 1] = new int[MoveGenerator.MAX_MOVES];
+                }
+
+                PackedState child = states[depth + 1];
+                child.copyFrom(states[depth]);
+                child.apply(moves[depth][next[depth]++]);
+
+                if ((++nodes & 255) == 0) {
+                    if (cancelled) return null;
+                    if (System.nanoTime() > deadline || nodes > tableLimit) return new Hint(best, false, false, nodes);
+                }
+                if (!insert(child.positionHash())) continue;
+
+                if (child.isWon()) return new Hint(line(moves, next, depth + 1), true, true, nodes);
+                int score = score(child);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = line(moves, next, depth + 1);
+                }
+
+                depth++;
+                count[depth] = generator.generate(child, moves[depth]);
+                next[depth] = 0;
+            }
+            return new Hint(best, false, true, nodes);
+        }
+
+        private static int[] line(int[][] moves, int[] next, int length)
+        {
+            int[] line = new int[length];
+            for (int d = 0; d < length; d++) line[d] = moves[d][next[d] - 1];
+            return line;
+        }
+
+        private boolean insert(long hash)
+        {
+            if (hash == 0) hash = 1;
+            int i = (int) (hash ^ (hash >>> 32)) & tableMask;
+            while (true) {
+                long h = table[i];
+                if (h == hash) return false;
+                if (h == 0) {
+                    table[i] = hash;
+                    return true;
+                }
+                i = (i + 1) & tableMask;
+            }
+        }
+    }
+
+    //plays deals by always following the hint and reports hint latency
+    //usage: java HintService [deals] [budgetMillis]
+    public static void main(String[] args) throws Exception
+    {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long budget = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        PlayingField field = new PlayingField();
+        int hints = 0, wins = 0, foundationCards = 0;
+        try (HintService service = new HintService(budget, 18)) {
+            for (int d = 1; d <= deals; d++) {
+                field.startGame(d);
+                for (int i = 0; i < 500 && field.isGameStarted(); i++, hints++) {
+                    int move = service.hint(field).get().getMove();
+                    if (move < 0 || !field.play(move)) break;
+                }
+                if (!field.isGameStarted()) wins++;
+                for (Foundation f : field.getFoundations()) foundationCards += f.size();
+            }
+            System.out.printf("%d deals, %d won, %.1f foundation cards/deal, %d hints%nlatency %s%n",
+                    deals, wins, (double) foundationCards / deals, hints, service.getLatency().summary());
+        }
+    }
+}
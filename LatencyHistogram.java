@@ -0,0 +1,60 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//lock-free latency histogram: power-of-two nanosecond ranges split into 8 linear buckets each,
+//so percentiles are accurate to 12.5% with a fixed 512 counters
+public class LatencyHistogram 
+{
+    private static final int SUB = 8;
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB);
+
+    public void record(long nanos)
+    {
+        counts.incrementAndGet(bucket(Math.max(1, nanos)));
+    }
+
+    private static int bucket(long v)
+    {
+        int exp = 63 - Long.numberOfLeadingZeros(v); //highest bit
+        if (exp < 3) return (int) v; //small values map directly
+        int sub = (int) (v >>> (exp - 3)) & (SUB - 1); //next 3 bits
+        return exp * SUB + sub;
+    }
+
+    private static long upperBound(int bucket)
+    {
+        int exp = bucket / SUB, sub = bucket % SUB;
+        if (exp < 3) return bucket;
+        return ((long) (SUB + sub + 1) << (exp - 3)) - 1;
+    }
+
+    public long count()
+    {
+        long n = 0;
+        for (int i = 0; i < counts.length(); i++) n += counts.get(i);
+        return n;
+    }
+
+    public long percentile(double p) //nanos at percentile p (0-100), 0 if empty
+    {
+        long total = count();
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * p / 100.0);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return upperBound(i);
+        }
+        return upperBound(counts.length() - 1);
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+    }
+
+    public String summary() //count and p50/p99/p99.9 in microseconds
+    {
+        return String.format("n=%d p50=%.1fus p99=%.1fus p99.9=%.1fus", count(),
+                percentile(50) / 1e3, percentile(99) / 1e3, percentile(99.9) / 1e3);
+    }
+}
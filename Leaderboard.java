@@ -0,0 +1,216 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+//best score per session, top k of them, shared by every request thread without a global lock.
+//sessions are spread over stripes by key; a stripe holds its own best k sorted high to low under
+//its own lock, so the global top k is always among the stripes' entries. once a stripe is full it
+//publishes its lowest score and anything not above it is turned away without locking, which is
+//most submissions on a busy board. rank queries binary search every stripe with optimistic reads
+public class Leaderboard
+{
+    public record Entry(long session, int score) {}
+
+    private final int k;
+    private final Stripe[] stripes;
+    private final int mask;
+
+    public Leaderboard(int k) { this(k, 16); }
+
+    public Leaderboard(int k, int stripeCount) //stripeCount is rounded up to a power of two
+    {
+        this.k = k;
+        int n = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) stripes[i] = new Stripe(k);
+        mask = n - 1;
+    }
+
+    public int capacity() { return k; }
+
+    //record a session's score, kept if it is the session's best and makes its stripe's top k.
+    //returns true if the board changed
+    public boolean submit(long session, int score)
+    {
+        Stripe s = stripes[(int) SplitMix.mix(session) & mask];
+        if (score <= s.floor) return false;
+        long stamp = s.lock.writeLock();
+        try {
+            return s.put(session, score);
+        } finally {
+            s.lock.unlockWrite(stamp);
+        }
+    }
+
+    //1 + the number of sessions with a higher best score, or -1 if that is below the top k.
+    //exact whenever it is in the top k: a session a stripe dropped was below k others already
+    public int rank(int score)
+    {
+        int higher = 0;
+        for (Stripe s : stripes) {
+            higher += s.countAbove(score);
+            if (higher >= k) return -1;
+        }
+        return higher + 1;
+    }
+
+    public List<Entry> top(int n) //best n, high to low
+    {
+        n = Math.min(n, k);
+        int[] scores = new int[stripes.length * k];
+        long[] sessions = new long[scores.length];
+        int[] head = new int[stripes.length], end = new int[stripes.length]; //each stripe's slice of the copy
+        int count = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            Stripe s = stripes[i];
+            long stamp = s.lock.readLock();
+            try {
+                System.arraycopy(s.scores, 0, scores, count, s.size);
+                System.arraycopy(s.sessions, 0, sessions, count, s.size);
+                head[i] = count;
+                count += s.size;
+                end[i] = count;
+            } finally {
+                s.lock.unlockRead(stamp);
+            }
+        }
+        //the slices are sorted, so take the best head n times
+        List<Entry> out = new ArrayList<>(n);
+        while (out.size() < n) {
+            int best = -1;
+            for (int i = 0; i < stripes.length; i++)
+                if (head[i] < end[i] && (best < 0 || scores[head[i]] > scores[head[best]])) best = i;
+            if (best < 0) break;
+            out.add(new Entry(sessions[head[best]], scores[head[best]]));
+            head[best]++;
+        }
+        return out;
+    }
+
+    public int size()
+    {
+        int n = 0;
+        for (Stripe s : stripes) n += s.size;
+        return Math.min(n, k);
+    }
+
+    private static final class Stripe
+    {
+        private final StampedLock lock = new StampedLock();
+        private final int[] scores; //high to low
+        private final long[] sessions;
+        private int size;
+        private volatile int floor = Integer.MIN_VALUE; //lowest score while full
+
+        Stripe(int k)
+        {
+            scores = new int[k];
+            sessions = new long[k];
+        }
+
+        boolean put(long session, int score) //under the write lock
+        {
+            int at = 0;
+            while (at < size && sessions[at] != session) at++;
+            if (at < size) {
+                if (scores[at] >= score) return false; //not a new best
+                remove(at);
+            } else if (size == scores.length) {
+                if (score <= scores[size - 1]) return false;
+                size--; //drop the lowest
+            }
+            int i = above(score); //after equal scores, the first to get there ranks first
+            System.arraycopy(scores, i, scores, i + 1, size - i);
+            System.arraycopy(sessions, i, sessions, i + 1, size - i);
+            scores[i] = score;
+            sessions[i] = session;
+            size++;
+            if (size == scores.length) floor = scores[size - 1];
+            return true;
+        }
+
+        private void remove(int at)
+        {
+            System.arraycopy(scores, at + 1, scores, at, size - at - 1);
+            System.arraycopy(sessions, at + 1, sessions, at, size - at - 1);
+            size--;
+        }
+
+        private int above(int score) //number of entries with a score >= score, by binary search
+        {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (scores[mid] >= score) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        int countAbove(int score) //entries with a higher score
+        {
+            long stamp = lock.tryOptimisticRead();
+            int n = strictlyAbove(score);
+            if (lock.validate(stamp)) return n;
+            stamp = lock.readLock();
+            try {
+                return strictlyAbove(score);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int strictlyAbove(int score)
+        {
+            int lo = 0, hi = Math.min(size, scores.length);
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (scores[mid] > score) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    //submissions from many threads at once, then rank queries against the full board
+    //usage: java Leaderboard [threads] [submissionsPerThread] [k]
+    public static void main(String[] args) throws InterruptedException
+    {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int per = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        Leaderboard board = new Leaderboard(k);
+        LongAdder kept = new LongAdder();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long t0 = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            pool.execute(() -> {
+                for (int i = 0; i < per; i++) {
+                    long r = SplitMix.at(seed, i);
+                    if (board.submit(r & 0xfffff, (int) (r >>> 40) % 1000)) kept.increment(); //~1M sessions, scores 0-999
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.DAYS);
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("%d submissions on %d threads: %.1f M/s, %d changed the board%n",
+                (long) threads * per, threads, threads * per / seconds / 1e6, kept.sum());
+
+        LatencyHistogram latency = new LatencyHistogram();
+        for (int i = 0; i < 1_000_000; i++) {
+            long q = System.nanoTime();
+            board.rank(i % 1000);
+            latency.record(System.nanoTime() - q);
+        }
+        System.out.println("rank query " + latency.summary());
+        List<Entry> top = board.top(5);
+        for (int i = 0; i < top.size(); i++) System.out.println("  " + (i + 1) + ". " + Long.toHexString(top.get(i).session()) + " " + top.get(i).score());
+    }
+}
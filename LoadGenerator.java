@@ -0,0 +1,78 @@
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//simulated players against a GameServer; reports request rate and move/draw latency percentiles
+//usage: java LoadGenerator [players] [actionsPerPlayer] [port]   (no port = start a server in-process)
+public class LoadGenerator 
+{
+    public static void main(String[] args) throws Exception
+    {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int actions = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        GameServer local = null;
+        int port;
+        if (args.length > 2) port = Integer.parseInt(args[2]);
+        else {
+            local = new GameServer(new SessionManager(), 0);
+            local.start();
+            port = local.getPort();
+        }
+
+        String base = "http://127.0.0.1:" + port;
+        ExecutorService threads = VirtualThreads.newExecutor();
+        LatencyHistogram moveLatency = new LatencyHistogram();
+        LatencyHistogram drawLatency = new LatencyHistogram();
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+
+        long t0 = System.nanoTime();
+        for (int p = 0; p < players; p++)
+        {
+            final long deal = p + 1;
+            threads.execute(() -> {
+                try {
+                    String state = get(base + "/start?deal=" + deal);
+                    String session = state.substring(12, state.indexOf('"', 12)); //{"session":"<id>"
+                    for (int a = 0; a < actions; a++)
+                    {
+                        long r = SplitMix.at(deal, a);
+                        long start = System.nanoTime();
+                        if ((r & 3) == 0) {
+                            get(base + "/draw?session=" + session);
+                            drawLatency.record(System.nanoTime() - start);
+                        } else {
+                            int from = 1 + (int) ((r >>> 8) % 10), to = 3 + (int) ((r >>> 16) % 8); //often illegal, that's fine
+                            get(base + "/move?session=" + session + "&from=" + from + "&to=" + to);
+                            moveLatency.record(System.nanoTime() - start);
+                        }
+                        requests.increment();
+                    }
+                    get(base + "/end?session=" + session);
+                } catch (Exception e) {
+                    errors.increment();
+                }
+            });
+        }
+        threads.shutdown();
+        threads.awaitTermination(1, TimeUnit.HOURS);
+        double seconds = (System.nanoTime() - t0) / 1e9;
+
+        System.out.printf("%d players x %d actions in %.2fs: %.0f req/s, %d failed players%n",
+                players, actions, seconds, requests.sum() / seconds, errors.sum());
+        System.out.println("move " + moveLatency.summary());
+        System.out.println("draw " + drawLatency.summary());
+        if (local != null) local.stop();
+    }
+
+    private static String get(String url) throws Exception //blocking request on a kept-alive connection
+    {
+        HttpURLConnection c = (HttpURLConnection) new URL(url).openConnection();
+        try (InputStream in = c.getResponseCode() < 400 ? c.getInputStream() : c.getErrorStream()) {
+            return new String(in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,242 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+//throughput and allocation of the headless model's hot paths, measured like JMH does it: warmup
+//iterations, then timed iterations reported as mean ops/s with a 99.9% error, plus bytes allocated
+//per op (what -prof gc calls gc.alloc.rate.norm). results also go to a JSON file in JMH's layout
+//so runs can be compared release over release
+//usage: java ModelBenchmark [iterationMillis] [results.json] [benchmark ...]
+public class ModelBenchmark
+{
+    private static final int WARMUP = 5, ITERATIONS = 10;
+    private static final double T_999 = 4.781; //Student's t, 99.9% two-sided, 9 degrees of freedom
+
+    private interface Op { long run(long ops); } //does ops operations, returns something to keep them alive
+
+    private record Result(String name, String unit, double[] scores, double bytesPerOp) {}
+
+    private static long sink; //results fed here so the JIT can't drop the work
+    private static volatile PlayingField position; //read on every op, so the JIT can't hoist cheap ops out of the loop
+
+    private final long iterationNanos;
+    private final List<Result> results = new ArrayList<>();
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public ModelBenchmark(long iterationMillis) { this.iterationNanos = iterationMillis * 1_000_000; }
+
+    //startGame on a fresh deal ID each time
+    static Op startGame()
+    {
+        PlayingField field = new PlayingField();
+        long[] deal = {1};
+        return ops -> {
+            for (long i = 0; i < ops; i++) field.startGame(deal[0]++);
+            return field.getHash();
+        };
+    }
+
+    //one legal card move and its undo, so the position stays the same
+    static Op moveCard()
+    {
+        PlayingField field = new PlayingField();
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int move = -1;
+        for (long deal = 1; move < 0; deal++) {
+            field.startGame(deal);
+            int n = generator.generate(field, moves);
+            for (int i = 0; i < n && move < 0; i++) if (Move.from(moves[i]) != PlayingField.STOCK) move = moves[i];
+        }
+        CardPile from = field.getPile(Move.from(move)), to = field.getPile(Move.to(move));
+        return ops -> {
+            for (long i = 0; i < ops; i++) {
+                field.moveCard(from, to);
+                field.undo();
+            }
+            return field.getHash();
+        };
+    }
+
+    //one rule-of-3s draw and its undo, so the stock never runs out
+    static Op draw()
+    {
+        PlayingField field = new PlayingField();
+        field.startGame(1);
+        return ops -> {
+            for (long i = 0; i < ops; i++) {
+                field.drawFromStockRuleOf3();
+                field.undo();
+            }
+            return field.getHash();
+        };
+    }
+
+    //one redeal of the whole waste and its undo, with the stock drawn out beforehand
+    static Op recycleWaste()
+    {
+        PlayingField field = new PlayingField();
+        field.startGame(1);
+        while (!field.getStock().isEmpty()) field.drawFromStockRuleOf3();
+        return ops -> {
+            for (long i = 0; i < ops; i++) {
+                field.recycleWaste();
+                field.undo();
+            }
+            return field.getHash();
+        };
+    }
+
+    //every card against every tableau (or foundation) of a mid-game position, one probe per op
+    static Op canAccept(boolean tableaus)
+    {
+        PlayingField field = midGame();
+        List<? extends CardPile> piles = tableaus ? field.getTableaus() : field.getFoundations();
+        Card[] deck = new Card[52];
+        for (int c = 0; c < 52; c++) deck[c] = Card.byOrdinal(c);
+        return ops -> {
+            long fits = 0;
+            for (long i = 0; i < ops; i++) {
+                int c = (int) (i % 52), p = (int) (i / 52 % piles.size());
+                if (piles.get(p).canAccept(deck[c])) fits++;
+            }
+            return fits;
+        };
+    }
+
+    static Op checkWin()
+    {
+        position = midGame();
+        return ops -> {
+            long won = 0;
+            for (long i = 0; i < ops; i++) if (position.checkWin()) won++;
+            return won;
+        };
+    }
+
+    //a whole game of uniformly random legal moves (at most 300) from a fresh deal, one playout per op
+    static Op playout()
+    {
+        PlayingField field = new PlayingField();
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long[] deal = {1};
+        return ops -> {
+            for (long i = 0; i < ops; i++) {
+                long d = deal[0]++;
+                field.startGame(d);
+                for (int k = 0; k < 300 && field.isGameStarted(); k++) {
+                    int n = generator.generate(field, moves);
+                    if (n == 0) break;
+                    field.play(moves[SplitMix.below(d, k, n)]);
+                }
+            }
+            return field.getMoves();
+        };
+    }
+
+    private static PlayingField midGame() //deal 1 after 40 random moves
+    {
+        PlayingField field = new PlayingField();
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        field.startGame(1);
+        for (int k = 0; k < 40; k++) {
+            int n = generator.generate(field, moves);
+            if (n == 0) break;
+            field.play(moves[SplitMix.below(1, k, n)]);
+        }
+        return field;
+    }
+
+    public void measure(String name, String unit, Op op)
+    {
+        long batch = 1;
+        while (time(op, batch) < iterationNanos / 100) batch *= 2; //about 100 batches per iteration
+
+        for (int i = 0; i < WARMUP; i++) iteration(op, batch);
+        double[] scores = new double[ITERATIONS];
+        long bytes0 = threads.getThreadAllocatedBytes(Thread.currentThread().getId()), ops = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long[] done = iteration(op, batch);
+            scores[i] = done[0] * 1e9 / done[1];
+            ops += done[0];
+        }
+        long bytes = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - bytes0;
+
+        Result r = new Result(name, unit, scores, (double) bytes / ops);
+        results.add(r);
+        System.out.printf(Locale.ROOT, "%-22s %14.1f +- %10.1f %-9s %10.2f B/op%n", name, mean(scores), error(scores), unit, r.bytesPerOp());
+    }
+
+    private long[] iteration(Op op, long batch) //ops done and nanos taken in one iteration
+    {
+        long ops = 0, t0 = System.nanoTime(), t;
+        do {
+            sink += op.run(batch);
+            ops += batch;
+        } while ((t = System.nanoTime() - t0) < iterationNanos);
+        return new long[] { ops, t };
+    }
+
+    private static long time(Op op, long batch)
+    {
+        long t0 = System.nanoTime();
+        sink += op.run(batch);
+        return System.nanoTime() - t0;
+    }
+
+    private static double mean(double[] v)
+    {
+        double s = 0;
+        for (double x : v) s += x;
+        return s / v.length;
+    }
+
+    private static double error(double[] v) //half width of the 99.9% confidence interval
+    {
+        double m = mean(v), s = 0;
+        for (double x : v) s += (x - m) * (x - m);
+        return T_999 * Math.sqrt(s / (v.length - 1) / v.length);
+    }
+
+    public void write(Path file) throws IOException //same fields as JMH's -rf json, with gc.alloc.rate.norm as a secondary metric
+    {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            sb.append(String.format(Locale.ROOT, "  {\"benchmark\": \"ModelBenchmark.%s\", \"mode\": \"thrpt\", \"warmupIterations\": %d, \"measurementIterations\": %d, ",
+                    r.name(), WARMUP, ITERATIONS));
+            sb.append(String.format(Locale.ROOT, "\"primaryMetric\": {\"score\": %.3f, \"scoreError\": %.3f, \"scoreUnit\": \"%s\", \"rawData\": [[",
+                    mean(r.scores()), error(r.scores()), r.unit()));
+            for (int k = 0; k < r.scores().length; k++) sb.append(k == 0 ? "" : ", ").append(String.format(Locale.ROOT, "%.3f", r.scores()[k]));
+            sb.append(String.format(Locale.ROOT, "]]}, \"secondaryMetrics\": {\"gc.alloc.rate.norm\": {\"score\": %.3f, \"scoreUnit\": \"B/op\"}}}", r.bytesPerOp()));
+            sb.append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+        Files.writeString(file, sb.append("]\n"));
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        Path out = Path.of(args.length > 1 ? args[1] : "model-benchmark.json");
+        List<String> only = args.length > 2 ? List.of(args).subList(2, args.length) : List.of();
+
+        ModelBenchmark b = new ModelBenchmark(millis);
+        System.out.printf("%-22s %14s    %10s %-9s %10s%n", "benchmark", "score", "error", "units", "alloc");
+        if (only.isEmpty() || only.contains("startGame")) b.measure("startGame", "ops/s", startGame());
+        if (only.isEmpty() || only.contains("moveCard")) b.measure("moveCard", "ops/s", moveCard()); //move + undo
+        if (only.isEmpty() || only.contains("draw")) b.measure("drawFromStockRuleOf3", "ops/s", draw()); //draw + undo
+        if (only.isEmpty() || only.contains("recycleWaste")) b.measure("recycleWaste", "ops/s", recycleWaste()); //redeal + undo
+        if (only.isEmpty() || only.contains("tableauCanAccept")) b.measure("tableauCanAccept", "ops/s", canAccept(true));
+        if (only.isEmpty() || only.contains("foundationCanAccept")) b.measure("foundationCanAccept", "ops/s", canAccept(false));
+        if (only.isEmpty() || only.contains("checkWin")) b.measure("checkWin", "ops/s", checkWin());
+        if (only.isEmpty() || only.contains("playout")) b.measure("playout", "games/s", playout());
+        b.write(out);
+        System.out.println("results written to " + out);
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+//plays many deals headless on all cores and keeps running totals only (no per-game results)
+public class MonteCarloSimulator 
+{
+    private static final int CHUNK = 256; //deals a worker claims at a time
+    private static final int MAX_ACTIONS = 2000; //moves + draws before a game is abandoned
+    private static final int IDLE_PASSES = 2; //stock passes without progress before a game is abandoned
+
+    private final Supplier<PlayPolicy> policies; //one policy per worker, so policies may keep state
+    private final int threads;
+    private final Path archive; //directory for one .cfr record file per worker, null = keep nothing
+    private final RuleSet rules;
+
+    //running totals
+    private final LongAdder games = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder totalMoves = new LongAdder();
+    private final LongAdder totalPasses = new LongAdder();
+    private final LongAdder totalScore = new LongAdder();
+    private final LongAdder[] foundationCards = new LongAdder[53]; //games ending with n foundation cards
+    private long startNanos;
+
+    public MonteCarloSimulator(Supplier<PlayPolicy> policies, int threads) { this(policies, threads, null, RuleSet.CLASSIC); }
+
+    public MonteCarloSimulator(Supplier<PlayPolicy> policies, int threads, Path archive, RuleSet rules)
+    {
+        this.policies = policies;
+        this.threads = threads;
+        this.archive = archive;
+        this.rules = rules;
+        for (int i = 0; i < foundationCards.length; i++) foundationCards[i] = new LongAdder();
+    }
+
+    //play deals firstDeal .. firstDeal + count - 1, printing a report every reportMillis
+    //fails if a worker does, e.g. when the archive can't be written
+    public void run(long firstDeal, long count, long reportMillis) throws IOException, InterruptedException
+    {
+        startNanos = System.nanoTime();
+        AtomicLong next = new AtomicLong(firstDeal);
+        long end = firstDeal + count;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            Path file = archive == null ? null : archive.resolve("games-" + t + ".cfr");
+            workers.add(pool.submit(() -> {
+                PlayingField field = new PlayingField();
+                field.setRules(rules);
+                PlayPolicy policy = policies.get();
+                MoveGenerator generator = new MoveGenerator();
+                int[] moves = new int[MoveGenerator.MAX_MOVES];
+                int[] played = new int[MAX_ACTIONS]; //this game's moves, for the archive
+                try (GameRecordWriter writer = file == null ? null : new GameRecordWriter(file, rules)) {
+                    long deal;
+                    while ((deal = next.getAndAdd(CHUNK)) < end)
+                        for (long d = deal; d < Math.min(deal + CHUNK, end); d++) {
+                            int n = play(field, policy, generator, moves, played, d);
+                            if (writer != null) writer.write(d, played, n);
+                        }
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(reportMillis, TimeUnit.MILLISECONDS)) System.out.println(report());
+        await(workers);
+        System.out.println(report());
+    }
+
+    //wait for every worker, then rethrow the first failure so a failed archive write fails the run instead of going missing
+    private static void await(List<Future<?>> workers) throws IOException, InterruptedException
+    {
+        for (Future<?> w : workers) {
+            try {
+                w.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                if (e.getCause() instanceof RuntimeException r) throw r;
+                if (e.getCause() instanceof Error err) throw err;
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    //play one deal, returns the number of moves recorded in played
+    private int play(PlayingField field, PlayPolicy policy, MoveGenerator generator, int[] moves, int[] played, long deal)
+    {
+        field.startGame(deal);
+        int idlePasses = 0, recorded = 0;
+        for (int action = 0; action < MAX_ACTIONS && field.isGameStarted(); action++)
+        {
+            int count = generator.generate(field, moves);
+            int pick = policy.choose(field, moves, count, SplitMix.at(deal, action));
+            if (pick < 0) break;
+
+            int move = moves[pick];
+            field.play(move);
+            played[action] = move;
+            recorded = action + 1;
+            if (Move.isRedeal(move)) {
+                if (++idlePasses >= IDLE_PASSES) break;
+            } else if (!Move.isDraw(move) && (Move.from(move) < PlayingField.TABLEAU || Move.to(move) < PlayingField.TABLEAU)) {
+                idlePasses = 0; //a card left the waste or the reserve, or reached a foundation
+            }
+        }
+
+        int onFoundations = 0;
+        for (Foundation f : field.getFoundations()) onFoundations += f.size();
+        games.increment();
+        if (onFoundations == 52) wins.increment();
+        totalMoves.add(field.getMoves());
+        totalPasses.add(field.getPasses());
+        totalScore.add(field.getScore());
+        foundationCards[onFoundations].increment();
+        return recorded;
+    }
+
+    public String report() //snapshot of the running totals
+    {
+        long n = games.sum();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("games %d | win rate %.4f | moves/game %.1f | passes/game %.2f | score/game %.1f | %.0f games/s",
+                n, n == 0 ? 0 : (double) wins.sum() / n, n == 0 ? 0 : (double) totalMoves.sum() / n,
+                n == 0 ? 0 : (double) totalPasses.sum() / n, n == 0 ? 0 : (double) totalScore.sum() / n, n / seconds));
+        sb.append("\n  foundation cards:");
+        for (int i = 0; i < foundationCards.length; i++) {
+            long c = foundationCards[i].sum();
+            if (c > 0) sb.append(' ').append(i).append('=').append(c);
+        }
+        return sb.toString();
+    }
+
+    //usage: java MonteCarloSimulator [games] [random|greedy] [threads] [firstDealId] [archiveDir|-] [rules]
+    //rules as in RuleSet.parse, e.g. draw=1,passes=3,tableaus=4,autofill
+    public static void main(String[] args) throws InterruptedException, IOException
+    {
+        long count = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        String policy = args.length > 1 ? args[1] : "greedy";
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long firstDeal = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        Supplier<PlayPolicy> policies = policy.equals("random") ? RandomPolicy::new : GreedyPolicy::new;
+        Path archive = args.length > 4 && !args[4].equals("-") ? Files.createDirectories(Path.of(args[4])) : null;
+        RuleSet rules = args.length > 5 ? RuleSet.parse(args[5]) : RuleSet.CLASSIC;
+        System.out.println("rules " + rules);
+        new MonteCarloSimulator(policies, threads, archive, rules).run(firstDeal, count, 1000);
+    }
+}
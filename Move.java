@@ -0,0 +1,30 @@
+//a move packed into one int: source pile, target pile and card count
+//a stock draw is (STOCK -> WASTE, n) and a redeal is (WASTE -> STOCK, n)
+public final class Move 
+{
+    private Move() {}
+
+    public static int of(int from, int to, int count) { return from | to << 5 | count << 10; }
+    public static int from(int move) { return move & 31; }
+    public static int to(int move) { return (move >>> 5) & 31; }
+    public static int count(int move) { return move >>> 10; }
+
+    public static boolean isDraw(int move) { return from(move) == PlayingField.STOCK; }
+    public static boolean isRedeal(int move) { return to(move) == PlayingField.STOCK; }
+
+    public static String toString(int move) 
+    {
+        if (isDraw(move)) return "draw " + count(move);
+        if (isRedeal(move)) return "redeal";
+        return pileName(from(move)) + " -> " + pileName(to(move)) + (count(move) > 1 ? " x" + count(move) : "");
+    }
+
+    public static String pileName(int pile)
+    {
+        if (pile == PlayingField.STOCK) return "stock";
+        if (pile == PlayingField.WASTE) return "waste";
+        if (pile == PlayingField.RESERVE) return "reserve";
+        if (pile < PlayingField.TABLEAU) return "foundation" + (pile - PlayingField.FOUNDATION);
+        return "tableau" + (pile - PlayingField.TABLEAU);
+    }
+}
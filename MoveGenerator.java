@@ -0,0 +1,119 @@
+//lists legal moves as packed Moves into a caller supplied int[], without allocating
+//one generator per thread: it keeps a few scratch arrays between calls
+public class MoveGenerator 
+{
+    public static final int MAX_MOVES = 256; //big enough for any position
+
+    private final boolean pruned; //skip moves a search never needs (see generate)
+    private final int[] top = new int[PlayingField.PILE_COUNT]; //top card ordinal per pile, -1 if empty
+    private final int[] size = new int[PlayingField.PILE_COUNT];
+    private final int[] run = new int[PlayingField.PILE_COUNT]; //top run length, tableaus only
+    private final long[] next = new long[PlayingField.PILE_COUNT]; //cards each foundation takes, see RuleTables
+    private int baseRank;
+    private boolean canRedeal;
+    private int drawCount;
+    private int tableauEnd; //past the last tableau in play
+
+    public MoveGenerator() { this(false); }
+    public MoveGenerator(boolean pruned) { this.pruned = pruned; }
+
+    public int generate(PlayingField field, int[] out) //returns the number of moves written
+    {
+        for (int p = 0; p < PlayingField.PILE_COUNT; p++) {
+            CardPile pile = field.getPile(p);
+            size[p] = pile.size();
+            top[p] = pile.isEmpty() ? -1 : pile.topCard().ordinal();
+            if (p >= PlayingField.TABLEAU) run[p] = ((Tableau) pile).runLength();
+        }
+        Integer base = field.getFoundations().get(0).getBaseRank();
+        baseRank = base == null ? 0 : base;
+        canRedeal = field.canRedeal();
+        drawCount = field.getDrawCount();
+        tableauEnd = PlayingField.TABLEAU + field.getTableauCount();
+        return generate(out);
+    }
+
+    public int generate(PackedState s, int[] out) //returns the number of moves written
+    {
+        for (int p = 0; p < PlayingField.PILE_COUNT; p++) {
+            size[p] = s.size(p);
+            top[p] = s.top(p);
+            if (p >= PlayingField.TABLEAU) run[p] = s.runLength(p);
+        }
+        baseRank = s.getBaseRank();
+        canRedeal = s.canRedeal();
+        drawCount = s.getDrawCount();
+        tableauEnd = PlayingField.TABLEAU + s.getTableauCount();
+        return generate(out);
+    }
+
+    //foundation moves first, then single card tableau moves, then runs, then the draw/redeal. when pruned, a card
+    //or run only goes to the first foundation or empty tableau that fits (they are interchangeable)
+    //and a lone tableau card or a whole tableau is never moved to another empty tableau
+    private int generate(int[] out)
+    {
+        int n = 0;
+        long anyNext = 0; //cards some foundation takes
+        for (int f = PlayingField.FOUNDATION; f < PlayingField.TABLEAU; f++) anyNext |= next[f] = RuleTables.foundation(baseRank, top[f]);
+
+        //waste/reserve/tableau to foundation
+        for (int src = PlayingField.WASTE; src < PlayingField.PILE_COUNT; src++)
+        {
+            if (isFoundation(src) || top[src] < 0 || (anyNext >>> top[src] & 1) == 0) continue;
+            for (int f = PlayingField.FOUNDATION; f < PlayingField.TABLEAU; f++)
+            {
+                if ((next[f] >>> top[src] & 1) == 0) continue;
+                out[n++] = Move.of(src, f, 1);
+                if (pruned) break;
+            }
+        }
+
+        //waste/reserve/tableau to tableau
+        for (int src = PlayingField.WASTE; src < PlayingField.PILE_COUNT; src++)
+        {
+            if (isFoundation(src) || top[src] < 0) continue;
+            boolean triedEmpty = false;
+            for (int t = PlayingField.TABLEAU; t < tableauEnd; t++)
+            {
+                if (t == src || !Tableau.accepts(top[t], top[src])) continue;
+                if (pruned && top[t] < 0) {
+                    if (triedEmpty || (src >= PlayingField.TABLEAU && size[src] == 1)) continue;
+                    triedEmpty = true;
+                }
+                out[n++] = Move.of(src, t, 1);
+            }
+        }
+
+        //runs of 2 or more between tableaus. a run's ranks go down one at a time and its colours
+        //alternate, so the one card that fits a target follows from the top card alone
+        for (int src = PlayingField.TABLEAU; src < PlayingField.PILE_COUNT; src++)
+        {
+            if (run[src] < 2) continue;
+            int topRank = Card.rankOf(top[src]);
+            boolean topRed = Card.suitOf(top[src]).isRed();
+            boolean triedEmpty = false;
+            for (int t = PlayingField.TABLEAU; t < tableauEnd; t++)
+            {
+                if (t == src) continue;
+                if (top[t] < 0) { //any part of it to an empty tableau, only the first one when pruned
+                    if (pruned && triedEmpty) continue;
+                    triedEmpty = true;
+                    for (int k = 2; k <= run[src]; k++)
+                        if (!pruned || k < size[src]) out[n++] = Move.of(src, t, k); //a whole pile just changes tableaus
+                    continue;
+                }
+                int k = Card.rankOf(top[t]) - topRank; //cards from the top down to the one that fits
+                if (k < 2 || k > run[src]) continue;
+                boolean red = topRed == (k % 2 == 1); //colour of that card
+                if (red != Card.suitOf(top[t]).isRed()) out[n++] = Move.of(src, t, k);
+            }
+        }
+
+        //rule-of-3s (or the rule set's) draw, or turn the waste over when the stock is empty
+        if (size[PlayingField.STOCK] > 0) out[n++] = Move.of(PlayingField.STOCK, PlayingField.WASTE, Math.min(drawCount, size[PlayingField.STOCK]));
+        else if (size[PlayingField.WASTE] > 0 && canRedeal) out[n++] = Move.of(PlayingField.WASTE, PlayingField.STOCK, size[PlayingField.WASTE]);
+        return n;
+    }
+
+    private static boolean isFoundation(int pile) { return pile >= PlayingField.FOUNDATION && pile < PlayingField.TABLEAU; }
+}
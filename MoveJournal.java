@@ -0,0 +1,50 @@
+import java.util.Arrays;
+
+//undo/redo history, one packed long per action:
+//bits 0-31 the Move, 32-39 the waste display count before it, bit 40 set if the action won the game
+public class MoveJournal 
+{
+    private long[] entries = new long[64];
+    private int size; //entries recorded (undone ones stay until a new action overwrites them)
+    private int cursor; //entries currently applied
+
+    public static long entry(int move, int displayCountBefore, boolean won)
+    {
+        return (move & 0xffffffffL) | (long) displayCountBefore << 32 | (won ? 1L << 40 : 0);
+    }
+
+    public static int move(long entry) { return (int) entry; }
+    public static int displayCountBefore(long entry) { return (int) (entry >>> 32) & 0xff; }
+    public static boolean won(long entry) { return (entry & 1L << 40) != 0; }
+
+    public void record(long entry) //a new action drops the redo history
+    {
+        if (cursor == entries.length) entries = Arrays.copyOf(entries, entries.length * 2);
+        entries[cursor++] = entry;
+        size = cursor;
+    }
+
+    public boolean canUndo() { return cursor > 0; }
+    public boolean canRedo() { return cursor < size; }
+    public long undo() { return entries[--cursor]; }
+    public long redo() { return entries[cursor++]; }
+    public long peekRedo() { return entries[cursor]; }
+    public int size() { return cursor; }
+    public long get(int i) { return entries[i]; }
+    public void markWon() { entries[cursor - 1] |= 1L << 40; } //the last action turned out to win
+
+    public int recorded() { return size; } //including undone entries that can still be redone
+
+    public void restore(long[] entries, int recorded, int cursor) //take over a saved history
+    {
+        this.entries = entries.length > 0 ? entries : new long[64];
+        this.size = recorded;
+        this.cursor = cursor;
+    }
+
+    public void clear()
+    {
+        size = 0;
+        cursor = 0;
+    }
+}
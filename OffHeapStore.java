@@ -0,0 +1,70 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//direct memory for parked game sessions, outside the Java heap. records get power-of-two slots
+//(128 bytes to 1 MiB) carved out of 1 MiB direct chunks; freed slots are reused by their size class
+public class OffHeapStore
+{
+    private static final int CHUNK = 1 << 20;
+    private static final int MIN_SLOT_BITS = 7; //128 byte slots
+    private static final int CLASSES = 14; //128 bytes ... 1 MiB
+
+    private final ByteBuffer[] chunks;
+    private final long[][] free = new long[CLASSES][]; //stack of free slot handles per size class
+    private final int[] freeCount = new int[CLASSES];
+    private final int[] slotCount = new int[CLASSES]; //slots per class, free or not
+    private int chunkCount;
+    private final AtomicInteger records = new AtomicInteger();
+
+    public OffHeapStore(long budgetBytes) { chunks = new ByteBuffer[(int) Math.min(budgetBytes / CHUNK, Integer.MAX_VALUE)]; }
+
+    public long capacity() { return (long) chunks.length * CHUNK; }
+    public synchronized long reserved() { return (long) chunkCount * CHUNK; } //direct bytes allocated so far
+    public int records() { return records.get(); } //slots in use
+
+    //handle of a slot that holds at least length bytes, or -1 if the budget is used up
+    public synchronized long allocate(int length)
+    {
+        int c = sizeClass(length);
+        if (c < 0) return -1;
+        if (freeCount[c] == 0 && !grow(c)) return -1;
+        records.incrementAndGet();
+        return free[c][--freeCount[c]];
+    }
+
+    public synchronized void free(long handle)
+    {
+        int c = (int) (handle >>> 24) & 0xff;
+        free[c][freeCount[c]++] = handle;
+        records.decrementAndGet();
+    }
+
+    public ByteBuffer slot(long handle) //view of a slot, positioned at its first byte
+    {
+        ByteBuffer chunk;
+        synchronized (this) { chunk = chunks[(int) (handle >>> 32)]; }
+        return chunk.slice((int) handle & 0xffffff, 1 << ((int) (handle >>> 24) & 0xff) + MIN_SLOT_BITS);
+    }
+
+    private boolean grow(int c) //new chunk, every slot of it goes on the free stack of class c
+    {
+        if (chunkCount == chunks.length) return false;
+        int chunk = chunkCount++;
+        chunks[chunk] = ByteBuffer.allocateDirect(CHUNK);
+        int slotSize = 1 << c + MIN_SLOT_BITS;
+        int slots = CHUNK / slotSize;
+        slotCount[c] += slots;
+        free[c] = free[c] == null ? new long[slots] : Arrays.copyOf(free[c], slotCount[c]);
+        for (int i = slots - 1; i >= 0; i--)
+            free[c][freeCount[c]++] = (long) chunk << 32 | (long) c << 24 | (long) i * slotSize;
+        return true;
+    }
+
+    private static int sizeClass(int length)
+    {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1); //ceil(log2)
+        int c = Math.max(bits, MIN_SLOT_BITS) - MIN_SLOT_BITS;
+        return c < CLASSES ? c : -1;
+    }
+}
@@ -0,0 +1,293 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+//compact copy of a PlayingField: every card is a byte ordinal and every pile is a slice of one byte[]
+public class PackedState 
+{
+    //header layout
+    private static final int BASE_RANK = PlayingField.PILE_COUNT; //0 = no base rank
+    private static final int DISPLAY_COUNT = BASE_RANK + 1; //waste cards shown
+    private static final int STARTED = DISPLAY_COUNT + 1;
+    private static final int MOVES = STARTED + 1; //int
+    private static final int SCORE = MOVES + 4; //int
+    private static final int PASSES = SCORE + 4; //times through the stock
+    private static final int MAX_PASSES = PASSES + 1; //0 = no limit
+    private static final int RULES = MAX_PASSES + 1; //draw count, tableaus, auto-fill, scoring (RuleSet.packed)
+    private static final int RESERVE_SIZE = RULES + 1; //reserve dealt at the start, only kept for restore
+    private static final int HEADER = 26; //first card byte
+    public static final int SIZE = HEADER + 52;
+
+    //order of the pile slices in the card area. the waste is followed by the stock stored
+    //top-first, so drawing and redealing only move the boundary between the two
+    private static final int[] AREA_ORDER = {
+        PlayingField.WASTE, PlayingField.STOCK, PlayingField.RESERVE,
+        3, 4, 5, 6, 7, 8, 9, 10
+    };
+
+    private static final Scoring[] SCORINGS = Scoring.values();
+
+    private final byte[] data;
+    private long hash; //Zobrist hash of the piles, kept up to date by every move
+
+    public PackedState() { data = new byte[SIZE]; }
+    private PackedState(byte[] data) { this.data = data; }
+    private PackedState(byte[] data, long hash) { this.data = data; this.hash = hash; }
+
+    //pile access
+    public int size(int pile) { return data[pile]; }
+    public boolean isEmpty(int pile) { return data[pile] == 0; }
+
+    public int start(int pile) //first card byte of a pile slice
+    {
+        int pos = HEADER;
+        for (int p : AREA_ORDER) {
+            if (p == pile) return pos;
+            pos += data[p];
+        }
+        throw new IllegalArgumentException("bad pile " + pile);
+    }
+
+    public int card(int pile, int i) //card ordinal, i = 0 is the bottom card
+    {
+        int n = data[pile];
+        return pile == PlayingField.STOCK ? data[start(pile) + n - 1 - i] : data[start(pile) + i];
+    }
+
+    public int top(int pile) //top card ordinal or -1 if empty
+    {
+        int n = data[pile];
+        if (n == 0) return -1;
+        return pile == PlayingField.STOCK ? data[start(pile)] : data[start(pile) + n - 1];
+    }
+
+    public int runLength(int pile) //cards in the top run of a tableau (see Tableau.runLength)
+    {
+        int n = data[pile];
+        if (n == 0) return 0;
+        int at = start(pile) + n - 1, k = 1;
+        while (k < n && Tableau.accepts(data[at - k], data[at - k + 1])) k++;
+        return k;
+    }
+
+    //header fields
+    public int getBaseRank() { return data[BASE_RANK]; }
+    public int getDisplayCount() { return data[DISPLAY_COUNT]; }
+    public boolean isGameStarted() { return data[STARTED] != 0; }
+    public int getPasses() { return data[PASSES]; }
+    public int getMaxPasses() { return data[MAX_PASSES]; }
+    public int getDrawCount() { return data[RULES] & 3; }
+    public int getTableauCount() { return data[RULES] >> 2 & 7; }
+    public boolean isAutoFill() { return (data[RULES] & 1 << 5) != 0; }
+    public Scoring getScoring() { return SCORINGS[data[RULES] >> 6 & 1]; }
+    public RuleSet getRules() { return RuleSet.unpack(data[RULES], data[MAX_PASSES], data[RESERVE_SIZE]); }
+    public boolean canRedeal() { return data[MAX_PASSES] == 0 || data[PASSES] < data[MAX_PASSES]; }
+    public int getMoves() { return getInt(MOVES); }
+    public int getScore() { return getInt(SCORE); }
+    public void setDisplayCount(int count) { data[DISPLAY_COUNT] = (byte) count; }
+    public void setMoves(int moves) { putInt(MOVES, moves); }
+    public void setScore(int score) { putInt(SCORE, score); }
+    public void setGameStarted(boolean started) { data[STARTED] = (byte) (started ? 1 : 0); }
+
+    //move the top count cards of one pile onto another (not for the stock, see draw/redeal)
+    public void move(int from, int to, int count)
+    {
+        int fromEnd = start(from) + data[from];
+        int a = fromEnd - count;
+        int toEnd = start(to) + data[to];
+        for (int j = 0; j < count; j++) {
+            int card = data[a + j];
+            hash ^= Zobrist.key(card, from, data[from] - count + j) ^ Zobrist.key(card, to, data[to] + j);
+        }
+        if (toEnd >= fromEnd) rotate(a, fromEnd, toEnd); //to is after from, maybe right next to it
+        else rotate(toEnd, a, fromEnd);
+        data[from] -= count;
+        data[to] += count;
+    }
+
+    //rule-of-3s (or the draw count): turn up to count stock cards onto the waste
+    public int draw(int count)
+    {
+        int n = Math.min(count, data[PlayingField.STOCK]);
+        if (n == 0) return 0;
+        int stock = start(PlayingField.STOCK); //stock is stored top-first
+        for (int k = 0; k < n; k++) {
+            int card = data[stock + k];
+            hash ^= Zobrist.key(card, PlayingField.STOCK, data[PlayingField.STOCK] - 1 - k)
+                  ^ Zobrist.key(card, PlayingField.WASTE, data[PlayingField.WASTE] + k);
+        }
+        data[PlayingField.STOCK] -= n;
+        data[PlayingField.WASTE] += n;
+        data[DISPLAY_COUNT] = (byte) Math.min(getDrawCount(), data[PlayingField.WASTE]);
+        return n;
+    }
+
+    //turn the whole waste back over onto the stock (the caller checks canRedeal)
+    public int redeal()
+    {
+        int n = data[PlayingField.WASTE];
+        int total = n + data[PlayingField.STOCK];
+        int waste = start(PlayingField.WASTE);
+        for (int i = 0; i < n; i++) {
+            int card = data[waste + i];
+            hash ^= Zobrist.key(card, PlayingField.WASTE, i) ^ Zobrist.key(card, PlayingField.STOCK, total - 1 - i);
+        }
+        hash ^= Zobrist.passes(data[PASSES], data[MAX_PASSES]) ^ Zobrist.passes(data[PASSES] + 1, data[MAX_PASSES]);
+        putInt(SCORE, getScore() - getScoring().perPass());
+        data[PlayingField.STOCK] += n;
+        data[PlayingField.WASTE] = 0;
+        data[DISPLAY_COUNT] = 0;
+        if (data[PASSES] < 127) data[PASSES]++;
+        return n;
+    }
+
+    public void apply(int move) //play a packed Move
+    {
+        if (Move.isDraw(move)) draw(Move.count(move));
+        else if (Move.isRedeal(move)) redeal();
+        else {
+            int from = Move.from(move), to = Move.to(move), count = Move.count(move);
+            move(from, to, count);
+            putInt(MOVES, getMoves() + 1); //like PlayingField, only card moves are counted
+            if (isFoundation(to)) putInt(SCORE, getScore() + getScoring().perCard() * count);
+            else if (isFoundation(from)) putInt(SCORE, getScore() - getScoring().perCard() * count);
+            if (data[from] == 0 && from >= PlayingField.TABLEAU && isAutoFill() && data[PlayingField.RESERVE] > 0) {
+                move(PlayingField.RESERVE, from, 1); //auto-fill, a move of its own as in PlayingField
+                putInt(MOVES, getMoves() + 1);
+            }
+            if (isWon()) setGameStarted(false); //same as PlayingField.checkWin
+        }
+    }
+
+    public int foundationCards() //cards on all foundations
+    {
+        int n = 0;
+        for (int f = PlayingField.FOUNDATION; f < PlayingField.TABLEAU; f++) n += data[f];
+        return n;
+    }
+
+    public boolean isWon() { return foundationCards() == 52; }
+
+    private static boolean isFoundation(int pile) { return pile >= PlayingField.FOUNDATION && pile < PlayingField.TABLEAU; }
+
+    //copying and comparing
+    public PackedState copy() { return new PackedState(data.clone(), hash); }
+
+    public void copyFrom(PackedState other) 
+    {
+        System.arraycopy(other.data, 0, data, 0, SIZE);
+        hash = other.hash;
+    }
+
+    //Zobrist hash of the piles only (ignores moves, score, display count), same value as PlayingField.getHash
+    public long positionHash() { return hash; }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof PackedState && Arrays.equals(data, ((PackedState) o).data);
+    }
+
+    @Override
+    public int hashCode() { return Arrays.hashCode(data); }
+
+    //serializing
+    public byte[] toBytes() { return data.clone(); }
+    public void writeTo(ByteBuffer buf) { buf.put(data); }
+
+    public static PackedState fromBytes(byte[] bytes)
+    {
+        if (bytes.length != SIZE) throw new IllegalArgumentException("packed state must be " + SIZE + " bytes");
+        PackedState s = new PackedState(bytes.clone());
+        s.hash = Zobrist.hash(s);
+        return s;
+    }
+
+    public static PackedState readFrom(ByteBuffer buf)
+    {
+        byte[] bytes = new byte[SIZE];
+        buf.get(bytes);
+        PackedState s = new PackedState(bytes);
+        s.hash = Zobrist.hash(s);
+        return s;
+    }
+
+    //conversion from/to the object model
+    public static PackedState of(PlayingField field)
+    {
+        PackedState s = new PackedState();
+        s.load(field);
+        return s;
+    }
+
+    public void load(PlayingField field) //overwrite this state with the field's position
+    {
+        int pos = HEADER;
+        for (int p : AREA_ORDER) {
+            List<Card> cards = field.getPile(p).getCards();
+            int n = cards.size();
+            for (int i = 0; i < n; i++) {
+                Card c = p == PlayingField.STOCK ? cards.get(n - 1 - i) : cards.get(i);
+                data[pos++] = (byte) c.ordinal();
+            }
+            data[p] = (byte) n;
+        }
+        Integer base = field.getFoundations().get(0).getBaseRank();
+        data[BASE_RANK] = (byte) (base == null ? 0 : base);
+        data[DISPLAY_COUNT] = (byte) field.getWaste().getDisplayCount();
+        data[PASSES] = (byte) Math.min(field.getPasses(), 127);
+        data[MAX_PASSES] = (byte) field.getMaxPasses();
+        data[RULES] = (byte) field.getRules().packed();
+        data[RESERVE_SIZE] = (byte) field.getRules().reserveSize();
+        setGameStarted(field.isGameStarted());
+        setMoves(field.getMoves());
+        setScore(field.getScore());
+        hash = field.getHash();
+    }
+
+    public void restore(PlayingField field) //rebuild the field's piles from this state
+    {
+        for (int p = 0; p < PlayingField.PILE_COUNT; p++) {
+            CardPile pile = field.getPile(p);
+            pile.clear();
+            for (int i = 0; i < size(p); i++) pile.addCard(Card.byOrdinal(card(p, i)));
+        }
+        for (Foundation f : field.getFoundations()) f.setBaseRank(getBaseRank() == 0 ? null : getBaseRank());
+        field.getWaste().setDisplayCount(getDisplayCount());
+        field.setRules(getRules());
+        field.setPasses(getPasses());
+        field.setGameStarted(isGameStarted());
+        field.setMoves(getMoves());
+        field.setScore(getScore());
+        field.rehash();
+    }
+
+    private void rotate(int lo, int mid, int hi) //[lo,mid)[mid,hi) -> [mid,hi)[lo,mid)
+    {
+        reverse(lo, mid);
+        reverse(mid, hi);
+        reverse(lo, hi);
+    }
+
+    private void reverse(int lo, int hi)
+    {
+        for (int i = lo, j = hi - 1; i < j; i++, j--) {
+            byte t = data[i];
+            data[i] = data[j];
+            data[j] = t;
+        }
+    }
+
+    private int getInt(int at) 
+    {
+        return (data[at] & 0xff) << 24 | (data[at + 1] & 0xff) << 16 | (data[at + 2] & 0xff) << 8 | (data[at + 3] & 0xff);
+    }
+
+    private void putInt(int at, int v)
+    {
+        data[at] = (byte) (v >>> 24);
+        data[at + 1] = (byte) (v >>> 16);
+        data[at + 2] = (byte) (v >>> 8);
+        data[at + 3] = (byte) v;
+    }
+}
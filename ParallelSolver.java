@@ -0,0 +1,155 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+//Solver that splits the move tree over a work-stealing ForkJoinPool, all workers share one table
+public class ParallelSolver implements AutoCloseable
+{
+    private static final int CHECK_INTERVAL = 4096; //nodes between limit checks
+
+    private final ForkJoinPool pool;
+    private final ConcurrentTranspositionTable table;
+    private final long nodeLimit;
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder tableHits = new LongAdder();
+    private final AtomicReference<int[]> winLine = new AtomicReference<>();
+    private volatile boolean stop;
+    private volatile boolean limitHit;
+
+    public ParallelSolver(int threads) { this(threads, 22, Long.MAX_VALUE); }
+
+    public ParallelSolver(int threads, int tableBits, long nodeLimit)
+    {
+        this.pool = new ForkJoinPool(threads);
+        this.table = new ConcurrentTranspositionTable(tableBits);
+        this.nodeLimit = nodeLimit;
+    }
+
+    public int getThreads() { return pool.getParallelism(); }
+
+    public Solver.Result solve(PlayingField field) { return solve(PackedState.of(field)); }
+
+    public Solver.Result solve(PackedState start)
+    {
+        long t0 = System.nanoTime();
+        table.clear();
+        nodes.reset();
+        tableHits.reset();
+        winLine.set(null);
+        stop = false;
+        limitHit = false;
+
+        table.insert(start.positionHash());
+        if (start.isWon()) return new Solver.Result(Solver.Status.WIN, new int[0], 0, 0, System.nanoTime() - t0);
+        pool.invoke(new SearchTask(start.copy(), new int[0]));
+
+        int[] line = winLine.get();
+        Solver.Status status = line != null ? Solver.Status.WIN : limitHit ? Solver.Status.UNKNOWN : Solver.Status.UNWINNABLE;
+        return new Solver.Result(status, line != null ? line : new int[0], nodes.sum(), tableHits.sum(), System.nanoTime() - t0);
+    }
+
+    @Override
+    public void close() { pool.shutdown(); }
+
+    //searches the subtree below one position, forking children while other workers are short of work
+    private class SearchTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final PackedState root;
+        private final int[] prefix; //moves that lead from the start to root
+        private final MoveGenerator generator = new MoveGenerator(true);
+        private PackedState[] states = new PackedState[64];
+        private int[][] moves = new int[64][];
+        private int[] line = new int[64];
+        private long localNodes;
+        private long localHits;
+
+        SearchTask(PackedState root, int[] prefix)
+        {
+            this.root = root;
+            this.prefix = prefix;
+        }
+
+        @Override
+        protected void compute()
+        {
+            states[0] = root;
+            search(0);
+            nodes.add(localNodes);
+            tableHits.add(localHits);
+        }
+
+        private void search(int depth)
+        {
+            if (depth + 1 >= states.length) {
+                states = Arrays.copyOf(states, states.length * 2);
+                moves = Arrays.copyOf(moves, moves.length * 2);
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            if (moves[depth] == null) moves[depth] = new int[MoveGenerator.MAX_MOVES];
+            if (states[depth + 1] == null) states[depth + 1] = new PackedState();
+
+            PackedState s = states[depth];
+            int[] buf = moves[depth];
+            int count = generator.generate(s, buf);
+            List<SearchTask> forked = null;
+
+            for (int i = 0; i < count && !stop; i++)
+            {
+                PackedState child = states[depth + 1];
+                child.copyFrom(s);
+                child.apply(buf[i]);
+                line[depth] = buf[i];
+
+                if (++localNodes % CHECK_INTERVAL == 0) checkLimits();
+                int added = table.insert(child.positionHash());
+                if (added == ConcurrentTranspositionTable.FULL) { //out of table, give up like Solver does
+                    limitHit = true;
+                    stop = true;
+                    break;
+                }
+                if (added == ConcurrentTranspositionTable.SEEN) { localHits++; continue; } //searched elsewhere
+
+                if (child.isWon()) { //publish the first win and stop everyone
+                    if (winLine.compareAndSet(null, path(depth + 1))) stop = true;
+                    break;
+                }
+
+                //fork every child but the last while workers are short of work, search the rest here
+                if (i + 1 < count && getSurplusQueuedTaskCount() < 2) {
+                    if (forked == null) forked = new ArrayList<>();
+                    SearchTask t = new SearchTask(child.copy(), path(depth + 1));
+                    t.fork();
+                    forked.add(t);
+                    continue;
+                }
+                search(depth + 1);
+            }
+            if (forked != null) for (SearchTask t : forked) t.join(); //stop set: they return at their next move
+        }
+
+        private int[] path(int depth) //prefix + moves down to depth
+        {
+            int[] p = Arrays.copyOf(prefix, prefix.length + depth);
+            System.arraycopy(line, 0, p, prefix.length, depth);
+            return p;
+        }
+
+        private void checkLimits()
+        {
+            nodes.add(localNodes);
+            tableHits.add(localHits);
+            localNodes = 0;
+            localHits = 0;
+            if (nodes.sum() > nodeLimit || table.isFull()) {
+                limitHit = true;
+                stop = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+import java.util.List;
+
+//solves the same deals at 1/2/4/8/16/32 threads and reports throughput and speedup
+//usage: java ParallelSolverBenchmark [deals] [tableBits] [nodeLimit]
+public class ParallelSolverBenchmark 
+{
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+    public static void main(String[] args)
+    {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int bits = args.length > 1 ? Integer.parseInt(args[1]) : 22;
+        long nodeLimit = args.length > 2 ? Long.parseLong(args[2]) : 2_000_000;
+
+        List<PackedState> positions = new ArrayList<>();
+        PlayingField field = new PlayingField();
+        for (int i = 0; i < deals; i++) {
+            field.startGame(i + 1); //same deals every run
+            positions.add(PackedState.of(field));
+        }
+
+        System.out.println("cores: " + Runtime.getRuntime().availableProcessors());
+        System.out.println("threads     seconds      nodes/s   speedup   won  unwinnable  unknown");
+        double baseRate = 0;
+        for (int threads : THREADS)
+        {
+            long nodes = 0;
+            int[] byStatus = new int[Solver.Status.values().length];
+            long t0 = System.nanoTime();
+            try (ParallelSolver solver = new ParallelSolver(threads, bits, nodeLimit)) {
+                for (PackedState p : positions) {
+                    Solver.Result r = solver.solve(p);
+                    nodes += r.getNodes();
+                    byStatus[r.getStatus().ordinal()]++;
+                }
+            }
+            double seconds = (System.nanoTime() - t0) / 1e9;
+            double rate = nodes / seconds;
+            if (threads == 1) baseRate = rate;
+            System.out.printf("%7d %11.2f %12.0f %8.2fx %5d %11d %8d%n", threads, seconds, rate, rate / baseRate,
+                    byStatus[0], byStatus[1], byStatus[2]);
+        }
+    }
+}
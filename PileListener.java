@@ -0,0 +1,4 @@
+public interface PileListener
+{
+    void pileChanged(CardPile pile); //called after the cards of a pile change
+}
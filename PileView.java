@@ -0,0 +1,79 @@
+import java.util.List;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+public class PileView extends StackPane
+{
+    //how a pile lays out its cards
+    public enum Style { STACKED, TOP_ONLY, FACE_DOWN, FANNED }
+
+    private final CardPile pile;
+    private final Style style;
+    private final Rectangle placeholder; //shown while the pile is empty
+    private final Rectangle faceDown = cardShape(Color.BLUE); //blue for cards face down (stock)
+
+    public PileView(CardPile pile, Color placeholderColor, Style style) //constructor
+    {
+        this.pile = pile;
+        this.style = style;
+        this.placeholder = cardShape(placeholderColor);
+        update();
+    }
+
+    public CardPile getPile() { return pile; }
+
+    //patch the children to match the model, nodes that are already in place are left alone
+    public void update()
+    {
+        List<Card> cards = pile.getCards();
+        ObservableList<Node> children = getChildren();
+        if (cards.isEmpty()) {
+            if (children.size() != 1 || children.get(0) != placeholder) children.setAll(placeholder);
+            return;
+        }
+
+        switch (style) {
+            case STACKED -> patch(cards, 0, 0, 20); //vertical offset between stacked cards
+            case FANNED -> {
+                int displayCount = pile instanceof Waste ? ((Waste) pile).getDisplayCount() : 3;
+                patch(cards, Math.max(0, cards.size() - displayCount), 15, 0); //horizontal offset for 3 cards
+            }
+            case TOP_ONLY -> patch(cards, cards.size() - 1, 0, 0);
+            case FACE_DOWN -> {
+                if (children.size() != 1 || children.get(0) != faceDown) children.setAll(faceDown);
+            }
+        }
+    }
+
+    //show cards[start..] with the given offsets: keep the matching prefix, replace the rest
+    private void patch(List<Card> cards, int start, double dx, double dy)
+    {
+        ObservableList<Node> children = getChildren();
+        int shown = cards.size() - start;
+        int keep = 0;
+        while (keep < shown && keep < children.size() && children.get(keep) == CardView.of(cards.get(start + keep)))
+            keep++;
+        if (keep < children.size()) children.remove(keep, children.size());
+
+        for (int i = keep; i < shown; i++) {
+            CardView cardView = CardView.of(cards.get(start + i));
+            cardView.show(pile.isFaceUp());
+            cardView.setTranslateX(i * dx);
+            cardView.setTranslateY(i * dy);
+            children.add(cardView);
+        }
+    }
+
+    private static Rectangle cardShape(Color fill) //empty pile / face-down card shape
+    {
+        Rectangle rect = new Rectangle(80, 110);
+        rect.setArcWidth(15);
+        rect.setArcHeight(15);
+        rect.setFill(fill);
+        rect.setStroke(Color.BLACK);
+        return rect;
+    }
+}
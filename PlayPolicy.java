@@ -0,0 +1,7 @@
+//decides which legal move a simulated player makes
+public interface PlayPolicy
+{
+    //pick one of the count moves (an index into moves), or -1 to give up the game.
+    //random is a per-call random value so policies stay reproducible for a deal
+    int choose(PlayingField field, int[] moves, int count, long random);
+}
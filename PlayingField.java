@@ -1,19 +1,40 @@
 import java.util.ArrayList;
 import java.util.List;
-import javafx.scene.Node;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class PlayingField 
+public class PlayingField implements PileListener
 {
-    private final Stock stock = new Stock();
+    //pile indices (shared by the packed state and anything that names piles by number)
+    public static final int STOCK = 0;
+    public static final int WASTE = 1;
+    public static final int RESERVE = 2;
+    public static final int FOUNDATION = 3; //first of 4 foundations
+    public static final int TABLEAU = 7; //first of 4 tableaus
+    public static final int PILE_COUNT = 11;
+
+    private final CardCycle cycle = new CardCycle(); //stock and waste share one ring of cards
+    private final Stock stock = new Stock(cycle);
     private final Reserve reserve = new Reserve();
-    private final Waste waste = new Waste();
+    private final Waste waste = new Waste(cycle);
     private final List<Foundation> foundations = new ArrayList<>();
     private final List<Tableau> tableaus = new ArrayList<>();
 
     //field states
     private int moves = 0;
     private boolean gameStarted = false;
-    private int score = 0; //score field
+    private int score = 0; //points so far (see Scoring), updated by every move
+    private int foundationCards = 0; //cards on all foundations, 52 is a win
+    private long hash = 0; //Zobrist hash of the piles, updated on every move
+    private long dealId = 0; //seed of the current deal
+    private final MoveJournal journal = new MoveJournal(); //undo/redo history
+    private boolean redoing = false; //replaying a journal entry, don't record it again
+    private int dirtyPiles = 0; //bit per pile index changed since the views last looked
+
+    //the variant, and what the moves need of it (see setRules)
+    private RuleSet rules = RuleSet.CLASSIC;
+    private int drawCount = 3;
+    private boolean autoFill = false;
+    private int perCard = 5, perPass = 20; //points per foundation card, penalty per redeal
 
     //GUI drag-and-drop support
     private CardPile selectedPile = null;
@@ -23,6 +44,11 @@ public class PlayingField
     {
         for (int i = 0; i < 4; i++) foundations.add(new Foundation("Foundation " + (i + 1)));
         for (int i = 0; i < 4; i++) tableaus.add(new Tableau("Tableau " + (i + 1)));
+        for (int i = 0; i < PILE_COUNT; i++) {
+            getPile(i).setIndex(i);
+            getPile(i).setListener(this);
+        }
+        cycle.setPiles(stock, waste);
     }
 
     //getters
@@ -34,6 +60,48 @@ public class PlayingField
     public int getMoves() { return moves; }
     public boolean isGameStarted() { return gameStarted; }
     public int getScore() { return score; } 
+    public long getDealId() { return dealId; }
+    public int getPasses() { return cycle.getPasses(); } //times through the stock, 1 until the first redeal
+    public int getMaxPasses() { return cycle.getMaxPasses(); }
+    public void setMaxPasses(int maxPasses) { setRules(rules.withMaxPasses(maxPasses)); } //0 = no limit, kept across games
+    public RuleSet getRules() { return rules; }
+    public int getDrawCount() { return drawCount; }
+    public int getTableauCount() { return rules.tableaus(); }
+    public boolean canRedeal() { return cycle.canRedeal(); }
+    public MoveJournal getJournal() { return journal; }
+    public long getHash() { return hash; } //position hash, equal to PackedState.positionHash
+    public void rehash() //recompute the hash and foundation count after the piles were changed directly
+    {
+        hash = Zobrist.hash(this);
+        foundationCards = 0;
+        for (int i = 0; i < foundations.size(); i++) foundationCards += foundations.get(i).size();
+    }
+
+    @Override
+    public void pileChanged(CardPile pile) { dirtyPiles |= 1 << pile.getIndex(); } //mark pile dirty
+
+    public int takeDirtyPiles() //piles changed since the last call (bit per pile index), then clear
+    {
+        int dirty = dirtyPiles;
+        dirtyPiles = 0;
+        return dirty;
+    }
+
+    //used when restoring a saved state
+    public void setMoves(int moves) { this.moves = moves; }
+    public void setScore(int score) { this.score = score; }
+    public void setGameStarted(boolean started) { this.gameStarted = started; }
+    public void setDealId(long dealId) { this.dealId = dealId; }
+    public void setPasses(int passes) { cycle.setPasses(passes); }
+
+    public CardPile getPile(int index) //get pile by index (STOCK, WASTE, ...)
+    {
+        if (index == STOCK) return stock;
+        if (index == WASTE) return waste;
+        if (index == RESERVE) return reserve;
+        if (index < TABLEAU) return foundations.get(index - FOUNDATION);
+        return tableaus.get(index - TABLEAU);
+    }
 
     //drag-and-drop support
     public CardPile getSelectedPile() { return selectedPile; }
@@ -41,99 +109,281 @@ public class PlayingField
     public Card getSelectedCard() { return selectedCard; }
     public void setSelectedCard(Card card) { this.selectedCard = card; }
 
-    public CardPile getPileForView(Node view) //get pile by its view
+    //the rules for this and the following games. set them before startGame (or let PackedState.restore
+    //bring back a saved game's); tableaus past the rule set's count are closed and never take a card
+    public void setRules(RuleSet rules)
     {
-        for (Tableau t : tableaus) if (t.getView() == view) return t;
-        for (Foundation f : foundations) if (f.getView() == view) return f;
-        if (reserve.getView() == view) return reserve;
-        if (stock.getView() == view) return stock;
-        if (waste.getView() == view) return waste;
-        return null;
+        this.rules = rules;
+        drawCount = rules.drawCount();
+        autoFill = rules.autoFill();
+        perCard = rules.scoring().perCard();
+        perPass = rules.scoring().perPass();
+        cycle.setMaxPasses(rules.maxPasses());
+        for (int i = 0; i < tableaus.size(); i++) tableaus.get(i).setClosed(i >= rules.tableaus());
     }
 
-    public void startGame() //setup new game
+    public void startGame() { startGame(ThreadLocalRandom.current().nextLong()); } //setup new random game
+
+    public void startGame(long dealId) //setup new game, the deal ID fixes the layout
     {
+        this.dealId = dealId;
+
         //reset all piles
-        stock.getCards().clear();
-        reserve.getCards().clear();
-        waste.getCards().clear();
-        for (Foundation f : foundations) f.getCards().clear();
-        for (Tableau t : tableaus) t.getCards().clear();
-
-        //initialize deck
-        for (Suit s : Suit.values()) {
-            for (int r = 1; r <= 13; r++) stock.addCard(new Card(s, r));
-        }
-        stock.shuffle();
+        stock.clear();
+        reserve.clear();
+        waste.clear();
+        for (int i = 0; i < foundations.size(); i++) foundations.get(i).clear();
+        for (int i = 0; i < tableaus.size(); i++) tableaus.get(i).clear();
 
-        //deal 13 cards to reserve face-up
-        for (int i = 0; i < 13; i++) {
-            Card c = stock.draw();
-            if (c != null) { c.setFaceUp(true); reserve.addCard(c); }
-        }
+        //initialize deck from the 52 shared cards (in ordinal order, so a deal ID always shuffles the same)
+        for (int i = 0; i < 52; i++) stock.addCard(Card.byOrdinal(i));
+        stock.shuffle(dealId);
+
+        //deal the reserve face-up (13 cards in classic Canfield)
+        for (int i = 0; i < rules.reserveSize(); i++) reserve.addCard(stock.draw());
 
-        //base card to first foundation
+        //base card to first foundation, every foundation starts at its rank
         Card base = stock.draw();
         if (base != null) {
-            base.setFaceUp(true);
             foundations.get(0).addCard(base);
-            foundations.get(0).setBaseRank(base.getRank());
+            for (int i = 0; i < foundations.size(); i++) foundations.get(i).setBaseRank(base.getRank());
         }
 
-        //deal 1 card to each tableau
-        for (Tableau t : tableaus) {
-            Card c = stock.draw();
-            if (c != null) { c.setFaceUp(true); t.addCard(c); }
-        }
+        //deal 1 card to each tableau in play
+        for (int i = 0; i < rules.tableaus(); i++) tableaus.get(i).addCard(stock.draw());
 
         moves = 0;
-        score = 0;
+        score = rules.scoring().start();
+        cycle.setPasses(1);
         gameStarted = true;
+        journal.clear();
+        rehash();
     }
 
-    //move card between piles (tableau/reserve/foundation)
+    //move card between piles (tableau/reserve/foundation). stock cards only leave by drawing:
+    //a move out of the stock would be journaled with the same encoding as a draw
     public boolean moveCard(CardPile from, CardPile to) 
     {
-        if (from == null || to == null || from.isEmpty()) return false;
+        if (from == null || to == null || from == stock || from.isEmpty()) return false;
         Card c = from.topCard();
         if (c == null) return false;
 
         if (!to.canAccept(c)) return false;
 
-        from.removeTopCard();
-        to.addCard(c);
+        transfer(from, to);
+        if (checkWin() && !redoing) journal.markWon();
+        return true;
+    }
+
+    //move a run of count cards from one tableau to another as one block, the run is checked in one pass
+    public boolean moveRun(CardPile from, CardPile to, int count)
+    {
+        if (count == 1) return moveCard(from, to);
+        if (!(from instanceof Tableau) || !(to instanceof Tableau) || from == to) return false;
+        if (count < 1 || count > ((Tableau) from).runLength()) return false;
+        Card bottom = from.getCards().get(from.size() - count);
+        if (!to.canAccept(bottom)) return false;
+
+        transfer(from, to, count);
+        return true; //a run never ends the game, the last card always goes up alone
+    }
+
+    //the player's drop: the top card, or between tableaus the part of the top run that fits.
+    //returns the number of cards moved, 0 if nothing fits
+    public int moveCards(CardPile from, CardPile to)
+    {
+        if (moveCard(from, to)) return 1;
+        if (!(from instanceof Tableau) || !(to instanceof Tableau) || from == to) return 0;
+        int run = ((Tableau) from).runLength(), n = from.size();
+        for (int k = 2; k <= run; k++)
+            if (to.canAccept(from.getCards().get(n - k))) return moveRun(from, to, k) ? k : 0;
+        return 0;
+    }
+
+    private void transfer(CardPile from, CardPile to) { transfer(from, to, 1); } //no win check
+
+    private void transfer(CardPile from, CardPile to, int count) //move and record the top count cards
+    {
+        int displayCount = waste.getDisplayCount();
+        shift(from, to, count);
         moves++;
+        record(Move.of(from.getIndex(), to.getIndex(), count), displayCount, false);
+        //auto-fill: the reserve's top card goes to a tableau as it empties, as a move of its own
+        //(a redo replays it from the journal instead)
+        if (autoFill && from.isEmpty() && from instanceof Tableau && !reserve.isEmpty() && !redoing) transfer(reserve, from, 1);
+    }
 
-        checkWin();
-        return true;
+    private void shift(CardPile from, CardPile to, int count) //move the top count cards as a block, hash included
+    {
+        List<Card> cards = from.getCards();
+        int fromBase = from.size() - count, toBase = to.size();
+        for (int j = 0; j < count; j++) {
+            int c = cards.get(fromBase + j).ordinal();
+            hash ^= Zobrist.key(c, from.getIndex(), fromBase + j) ^ Zobrist.key(c, to.getIndex(), toBase + j);
+        }
+        from.moveTopTo(to, count);
+        if (isFoundation(to.getIndex())) {
+            foundationCards += count;
+            score += perCard * count;
+        } else if (isFoundation(from.getIndex())) {
+            foundationCards -= count;
+            score -= perCard * count;
+        }
     }
 
-    //rule-of-3s: draw from stock to waste
-    public void drawFromStockRuleOf3()
+    private static boolean isFoundation(int pile) { return pile >= FOUNDATION && pile < TABLEAU; }
+
+    //auto-play: put every card that is safe (see Foundation.isSafe) on its foundation, again and again
+    //until nothing more goes up. the whole cascade is one batch: the views see each pile changed
+    //once and the win is checked once at the end. returns the number of cards moved
+    public int autoPlay()
     {
-        int drawCount = Math.min(3, stock.size());
-        List<Card> drawn = new ArrayList<>();
-        for (int i = 0; i < drawCount; i++)
-        {
-            Card c = stock.draw();
-            if (c != null)
-            {
-                c.setFaceUp(true);
-                drawn.add(c);
+        if (!gameStarted) return 0;
+        Integer base = foundations.get(0).getBaseRank();
+        if (base == null) return 0;
+        int[] built = new int[4]; //foundation cards per suit
+        for (int i = 0; i < foundations.size(); i++) {
+            Foundation f = foundations.get(i);
+            if (!f.isEmpty()) built[f.getCards().get(0).getSuit().ordinal()] = f.size();
+        }
+
+        int moved = 0;
+        for (boolean progress = true; progress; ) {
+            progress = false;
+            for (int p = WASTE; p < PILE_COUNT; p++) {
+                if (p >= FOUNDATION && p < TABLEAU) continue;
+                CardPile from = getPile(p);
+                if (from.isEmpty()) continue;
+                Card c = from.topCard();
+                if (!Foundation.isSafe(base, built, c.ordinal())) continue;
+                for (int i = 0; i < foundations.size(); i++) {
+                    if (!foundations.get(i).canAccept(c)) continue;
+                    transfer(from, foundations.get(i));
+                    built[c.getSuit().ordinal()]++;
+                    moved++;
+                    progress = true;
+                    break;
+                }
             }
         }
+        if (moved > 0 && checkWin() && !redoing) journal.markWon();
+        return moved;
+    }
 
-        waste.addCardsRuleOf3(drawn);
+    //rule-of-3s (or the rule set's draw count): draw from stock to waste (turns the waste over when the stock is empty)
+    public void drawFromStockRuleOf3()
+    {
+        if (stock.isEmpty()) {
+            recycleWaste();
+            return;
+        }
+        int displayCount = waste.getDisplayCount();
+        int n = Math.min(drawCount, stock.size());
+        hash ^= drawKeys(waste.size(), n);
+        cycle.draw(n); //the drawn cards are already in place, only the cursor moves
+        waste.setDisplayCount(Math.min(drawCount, waste.size()));
+        record(Move.of(STOCK, WASTE, n), displayCount, false);
     }
 
-    private void checkWin() 
+    //turn the waste back over onto the stock, the first card drawn ends up on top
+    public void recycleWaste()
     {
-        boolean allFoundationsFull = foundations.stream().allMatch(f -> f.size() == 13);
-        if (allFoundationsFull) 
-        {
-            score++;
-            gameStarted = false;
+        if (waste.isEmpty() || !cycle.canRedeal()) return;
+        int displayCount = waste.getDisplayCount();
+        int n = waste.size();
+        hash ^= redealKeys(n);
+        cycle.redeal();
+        score -= perPass;
+        waste.setDisplayCount(0);
+        record(Move.of(WASTE, STOCK, n), displayCount, false);
+    }
+
+    private long drawKeys(int wasteSize, int n) //hash change of turning the next n stock cards over
+    {
+        long h = 0;
+        int stockSize = stock.size();
+        for (int i = 0; i < n; i++) {
+            int c = cycle.at(wasteSize + i).ordinal();
+            h ^= Zobrist.key(c, STOCK, stockSize - 1 - i) ^ Zobrist.key(c, WASTE, wasteSize + i);
+        }
+        return h;
+    }
+
+    private long redealKeys(int n) //hash change of turning n waste cards back over (same either way)
+    {
+        long h = Zobrist.passes(cycle.getPasses(), cycle.getMaxPasses()) ^ Zobrist.passes(cycle.getPasses() + 1, cycle.getMaxPasses());
+        int total = n + stock.size();
+        for (int i = 0; i < n; i++) {
+            int c = cycle.at(i).ordinal();
+            h ^= Zobrist.key(c, WASTE, i) ^ Zobrist.key(c, STOCK, total - 1 - i);
         }
+        return h;
+    }
+
+    private void record(int move, int displayCountBefore, boolean won)
+    {
+        if (!redoing) journal.record(MoveJournal.entry(move, displayCountBefore, won));
+    }
+
+    //take back the last action, returns false if there is nothing to undo
+    public boolean undo()
+    {
+        if (!journal.canUndo()) return false;
+        long entry = journal.undo();
+        int move = MoveJournal.move(entry);
+        if (Move.isDraw(move)) {
+            cycle.undraw(Move.count(move));
+            hash ^= drawKeys(waste.size(), Move.count(move));
+        } else if (Move.isRedeal(move)) {
+            cycle.unredeal(Move.count(move));
+            hash ^= redealKeys(Move.count(move));
+            score += perPass;
+        } else {
+            shift(getPile(Move.to(move)), getPile(Move.from(move)), Move.count(move));
+            moves--;
+        }
+        if (MoveJournal.won(entry)) gameStarted = true;
+        waste.setDisplayCount(MoveJournal.displayCountBefore(entry));
+        return true;
+    }
+
+    //play the last undone action again, returns false if there is nothing to redo
+    public boolean redo()
+    {
+        if (!journal.canRedo()) return false;
+        redoing = true;
+        try {
+            int move = MoveJournal.move(journal.peekRedo());
+            if (Move.isRedeal(move)) recycleWaste();
+            else play(move);
+        } finally {
+            redoing = false;
+        }
+        journal.redo();
+        return true;
+    }
+
+    //play a packed Move (see Move), returns false if it was not legal
+    public boolean play(int move)
+    {
+        if (Move.isDraw(move)) {
+            if (stock.isEmpty()) return false;
+            drawFromStockRuleOf3();
+            return true;
+        }
+        if (Move.isRedeal(move)) {
+            if (!stock.isEmpty() || waste.isEmpty() || !cycle.canRedeal()) return false;
+            recycleWaste();
+            return true;
+        }
+        return moveRun(getPile(Move.from(move)), getPile(Move.to(move)), Move.count(move));
+    }
+
+    boolean checkWin() //package-private for ModelBenchmark
+    {
+        if (foundationCards != 52) return false; //counted as cards move, no need to look at the piles
+        gameStarted = false;
+        return true;
     }
 
     //returns pile based on string id
@@ -0,0 +1,9 @@
+//plays a uniformly random legal move
+public class RandomPolicy implements PlayPolicy
+{
+    @Override
+    public int choose(PlayingField field, int[] moves, int count, long random)
+    {
+        return count == 0 ? -1 : (int) (((random >>> 32) * count) >>> 32);
+    }
+}
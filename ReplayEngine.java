@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//re-plays archived games (.cfr files) against the PlayingField rules, under the rule set each file was
+//recorded with, one file per worker at a time.
+//every worker keeps one field and one reader buffer, so memory does not grow with the archive
+public class ReplayEngine
+{
+    private final int threads;
+
+    //running totals
+    private final LongAdder games = new LongAdder();
+    private final LongAdder invalid = new LongAdder(); //records with a move the rules reject
+    private final LongAdder wins = new LongAdder();
+    private final LongAdder totalMoves = new LongAdder();
+    private final LongAdder totalDraws = new LongAdder();
+    private final LongAdder totalPasses = new LongAdder();
+    private final LongAdder actions = new LongAdder(); //moves + draws + redeals replayed
+    private final LongAdder[] foundationCards = new LongAdder[53];
+    private long startNanos;
+
+    public ReplayEngine(int threads)
+    {
+        this.threads = threads;
+        for (int i = 0; i < foundationCards.length; i++) foundationCards[i] = new LongAdder();
+    }
+
+    public void run(List<Path> files) throws IOException, InterruptedException //fails if any file can't be read to the end
+    {
+        startNanos = System.nanoTime();
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            workers.add(pool.submit(() -> {
+                PlayingField field = new PlayingField();
+                int f;
+                while ((f = next.getAndIncrement()) < files.size()) {
+                    try (GameRecordReader reader = new GameRecordReader(files.get(f))) {
+                        field.setRules(reader.getRules());
+                        while (reader.next()) replay(field, reader);
+                    }
+                }
+                return null;
+            }));
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.DAYS);
+        await(workers);
+    }
+
+    //wait for every worker, then rethrow the first failure so a broken file fails the run instead of going missing
+    private static void await(List<Future<?>> workers) throws IOException, InterruptedException
+    {
+        for (Future<?> w : workers) {
+            try {
+                w.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                if (e.getCause() instanceof RuntimeException r) throw r;
+                if (e.getCause() instanceof Error err) throw err;
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    //play one record, stop at the first move the rules don't allow
+    private void replay(PlayingField field, GameRecordReader record)
+    {
+        field.startGame(record.getDealId());
+        int draws = 0, n = record.getMoveCount();
+        boolean valid = true;
+        for (int i = 0; i < n && valid; i++) {
+            int move = record.getMove(i);
+            valid = field.play(move);
+            if (Move.isDraw(move)) draws++;
+        }
+        games.increment();
+        actions.add(n);
+        if (!valid) {
+            invalid.increment();
+            return;
+        }
+        int onFoundations = 0;
+        for (Foundation fd : field.getFoundations()) onFoundations += fd.size();
+        if (onFoundations == 52) wins.increment();
+        totalMoves.add(field.getMoves());
+        totalDraws.add(draws);
+        totalPasses.add(field.getPasses());
+        foundationCards[onFoundations].increment();
+    }
+
+    public String report()
+    {
+        long n = games.sum(), ok = n - invalid.sum();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("games %d (%d invalid) | win rate %.4f | moves/game %.1f | draws/game %.1f | passes/game %.2f%n",
+                n, invalid.sum(), ok == 0 ? 0 : (double) wins.sum() / ok, ok == 0 ? 0 : (double) totalMoves.sum() / ok,
+                ok == 0 ? 0 : (double) totalDraws.sum() / ok, ok == 0 ? 0 : (double) totalPasses.sum() / ok));
+        sb.append(String.format("  %.2fs, %.0f games/s, %.2f M actions/s", seconds, n / seconds, actions.sum() / seconds / 1e6));
+        sb.append("\n  foundation cards:");
+        for (int i = 0; i < foundationCards.length; i++) {
+            long c = foundationCards[i].sum();
+            if (c > 0) sb.append(' ').append(i).append('=').append(c);
+        }
+        return sb.toString();
+    }
+
+    //usage: java ReplayEngine [threads] file.cfr ...      replay and validate whole files
+    //       java ReplayEngine seek file.cfr n             print game n of a file
+    public static void main(String[] args) throws Exception
+    {
+        if (args.length > 0 && args[0].equals("seek")) {
+            try (GameRecordReader reader = new GameRecordReader(Path.of(args[1]))) {
+                reader.seek(Long.parseLong(args[2]));
+                if (!reader.next()) {
+                    System.out.println("no game " + args[2]);
+                    return;
+                }
+                System.out.println("game " + reader.getRecordNumber() + ", rules " + reader.getRules() + ", deal " + Long.toUnsignedString(reader.getDealId()) + ", " + reader.getMoveCount() + " moves");
+                for (int i = 0; i < reader.getMoveCount(); i++) System.out.println("  " + Move.toString(reader.getMove(i)));
+            }
+            return;
+        }
+        int first = args.length > 0 && args[0].matches("\\d+") ? 1 : 0;
+        int threads = first == 1 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (int i = first; i < args.length; i++) files.add(Path.of(args[i]));
+        ReplayEngine engine = new ReplayEngine(threads);
+        engine.run(files);
+        System.out.println(engine.report());
+    }
+}
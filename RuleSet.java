@@ -0,0 +1,56 @@
+//the variant being played: cards per draw, stock passes, reserve size, tableaus in play, whether an
+//emptied tableau refills from the reserve by itself, and the scoring. PlayingField resolves it into
+//plain fields when it is set, so moves only see a draw count and loop bounds, never the rule set itself
+public record RuleSet(int drawCount, int maxPasses, int reserveSize, int tableaus, boolean autoFill, Scoring scoring)
+{
+    public static final RuleSet CLASSIC = new RuleSet(3, 0, 13, 4, false, Scoring.STANDARD);
+
+    public RuleSet
+    {
+        if (drawCount < 1 || drawCount > 3) throw new IllegalArgumentException("draw count must be 1-3");
+        if (maxPasses < 0 || maxPasses > 127) throw new IllegalArgumentException("passes must be 0 (no limit) - 127");
+        if (tableaus < 1 || tableaus > 4) throw new IllegalArgumentException("tableaus must be 1-4");
+        if (reserveSize < 0 || reserveSize > 51 - tableaus) throw new IllegalArgumentException("reserve does not fit in the deck");
+        if (scoring == null) throw new IllegalArgumentException("no scoring");
+    }
+
+    public RuleSet withMaxPasses(int passes) { return new RuleSet(drawCount, passes, reserveSize, tableaus, autoFill, scoring); }
+
+    //draw count, tableaus, auto-fill and scoring in one byte (the packed state keeps the rest on its own)
+    public int packed() { return drawCount | tableaus << 2 | (autoFill ? 1 << 5 : 0) | scoring.ordinal() << 6; }
+
+    public static RuleSet unpack(int packed, int maxPasses, int reserveSize)
+    {
+        return new RuleSet(packed & 3, maxPasses, reserveSize, packed >> 2 & 7, (packed & 1 << 5) != 0, Scoring.values()[packed >> 6 & 1]);
+    }
+
+    //"draw=1,passes=3,reserve=13,tableaus=4,autofill,scoring=casino", anything left out is as in CLASSIC
+    public static RuleSet parse(String s)
+    {
+        RuleSet r = CLASSIC;
+        int draw = r.drawCount, passes = r.maxPasses, reserve = r.reserveSize, tableaus = r.tableaus;
+        boolean autoFill = r.autoFill;
+        Scoring scoring = r.scoring;
+        for (String part : s.split(",")) {
+            String[] kv = part.trim().split("=", 2);
+            switch (kv[0]) {
+                case "" -> { }
+                case "draw" -> draw = Integer.parseInt(kv[1]);
+                case "passes" -> passes = Integer.parseInt(kv[1]);
+                case "reserve" -> reserve = Integer.parseInt(kv[1]);
+                case "tableaus" -> tableaus = Integer.parseInt(kv[1]);
+                case "autofill" -> autoFill = kv.length == 1 || Boolean.parseBoolean(kv[1]);
+                case "scoring" -> scoring = Scoring.valueOf(kv[1].toUpperCase());
+                default -> throw new IllegalArgumentException("unknown rule " + kv[0]);
+            }
+        }
+        return new RuleSet(draw, passes, reserve, tableaus, autoFill, scoring);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "draw=" + drawCount + ",passes=" + maxPasses + ",reserve=" + reserveSize + ",tableaus=" + tableaus
+                + (autoFill ? ",autofill" : "") + (scoring == Scoring.STANDARD ? "" : ",scoring=" + scoring.name().toLowerCase());
+    }
+}
@@ -0,0 +1,81 @@
+//the placement rules compiled once into bit masks over card ordinals (bit c = card c), so checking a
+//move is one shift and one and instead of rank arithmetic and suit lookups. the rule formulas below
+//only fill the tables, and main checks the tables against them
+public final class RuleTables
+{
+    private static final int RANKS = 13;
+
+    private static final long[] PLACES = new long[52]; //tableau cards each card may be placed on
+    private static final long[] FOUNDATION = new long[(RANKS + 1) * 53]; //cards a foundation takes, by base rank and top + 1
+
+    static
+    {
+        for (int card = 0; card < 52; card++)
+            for (int top = 0; top < 52; top++)
+                if (tableauRule(top, card)) PLACES[card] |= 1L << top;
+        for (int base = 0; base <= RANKS; base++)
+            for (int top = -1; top < 52; top++)
+                for (int card = 0; card < 52; card++)
+                    if (foundationRule(base, top, card)) FOUNDATION[base * 53 + top + 1] |= 1L << card;
+    }
+
+    private RuleTables() {}
+
+    //may card go on a tableau whose top is top (-1 = empty, takes any card)
+    public static boolean tableau(int top, int card) { return top < 0 || (PLACES[card] >>> top & 1) != 0; }
+
+    //the cards a foundation takes next (top = -1 for an empty one, baseRank = 0 before the deal)
+    public static long foundation(int baseRank, int top) { return FOUNDATION[baseRank * 53 + top + 1]; }
+
+    //build down by alternating colours
+    private static boolean tableauRule(int top, int card)
+    {
+        boolean oppositeColor = Card.suitOf(card).isRed() != Card.suitOf(top).isRed();
+        return oppositeColor && Card.rankOf(card) == Card.rankOf(top) - 1;
+    }
+
+    //empty foundations start at the base rank, then up by suit wrapping K -> A
+    private static boolean foundationRule(int baseRank, int top, int card)
+    {
+        if (top < 0) return baseRank != 0 && Card.rankOf(card) == baseRank;
+        return card / 13 == top / 13 && Card.rankOf(card) == (Card.rankOf(top) % 13) + 1;
+    }
+
+    //differential check: every table entry, then the piles of random positions against the formulas
+    //usage: java RuleTables [games]
+    public static void main(String[] args)
+    {
+        for (int top = -1; top < 52; top++)
+            for (int card = 0; card < 52; card++) {
+                if (tableau(top, card) != (top < 0 || tableauRule(top, card))) throw new AssertionError("tableau " + top + " " + card);
+                for (int base = 0; base <= RANKS; base++)
+                    if ((foundation(base, top) >>> card & 1) != 0 != foundationRule(base, top, card))
+                        throw new AssertionError("foundation " + base + " " + top + " " + card);
+            }
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        PlayingField field = new PlayingField();
+        MoveGenerator generator = new MoveGenerator();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long positions = 0, probes = 0;
+        for (int g = 1; g <= games; g++) {
+            field.startGame(g);
+            for (int i = 0; i < 300 && field.isGameStarted(); i++, positions++) {
+                int base = field.getFoundations().get(0).getBaseRank();
+                for (int p = PlayingField.FOUNDATION; p < PlayingField.PILE_COUNT; p++) {
+                    CardPile pile = field.getPile(p);
+                    int top = pile.isEmpty() ? -1 : pile.topCard().ordinal();
+                    for (int card = 0; card < 52; card++, probes++) {
+                        boolean rule = p < PlayingField.TABLEAU ? foundationRule(base, top, card) : top < 0 || tableauRule(top, card);
+                        if (pile.canAccept(Card.byOrdinal(card)) != rule) throw new AssertionError("game " + g + " move " + i + ": " + pile.getName() + " " + Card.byOrdinal(card));
+                    }
+                }
+                if (SplitMix.below(g, ~i, 8) == 0 && field.undo()) continue; //pops too
+                int n = generator.generate(field, moves);
+                if (n == 0) break;
+                field.play(moves[SplitMix.below(g, i, n)]);
+            }
+        }
+        System.out.println("tables match the rules: " + positions + " positions, " + probes + " probes");
+    }
+}
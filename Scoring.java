@@ -0,0 +1,23 @@
+//how a game is scored, kept up to date move by move: points for every card that reaches a foundation
+//(taken back if it leaves again), a penalty each time the waste is turned over. casino scoring is
+//the gambling version: the game starts 52 in debt (the buy-in) and every foundation card pays 5
+public enum Scoring
+{
+    STANDARD(0, 5, 20),
+    CASINO(-52, 5, 0);
+
+    private final int start; //score when the cards are dealt
+    private final int perCard; //per card on a foundation
+    private final int perPass; //taken off per redeal
+
+    Scoring(int start, int perCard, int perPass)
+    {
+        this.start = start;
+        this.perCard = perCard;
+        this.perPass = perPass;
+    }
+
+    public int start() { return start; }
+    public int perCard() { return perCard; }
+    public int perPass() { return perPass; }
+}
@@ -0,0 +1,151 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+//hosts many independent games keyed by session ID. the map is concurrent and each session
+//synchronizes on itself, so there is no global lock on the move path.
+//at most maxLive sessions keep their objects on the heap; past that a CLOCK sweep parks
+//sessions that were not used since its last pass into the off-heap store.
+//with a journal directory every action is logged; recover() rebuilds the sessions after a crash
+//from the last checkpoint plus the events logged after it
+public class SessionManager 
+{
+    static final int SEGMENT_BYTES = 64 << 20;
+    private static final long FLUSH_MILLIS = 5; //group commit interval
+
+    private final ConcurrentHashMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private final OffHeapStore store;
+    private final int maxLive;
+    private final ReentrantLock sweep = new ReentrantLock(); //one sweeper at a time, nobody waits for it
+    private Iterator<GameSession> hand; //CLOCK hand over the map, guarded by sweep
+    private Path journalDir;
+    private EventJournal events; //null = nothing is logged
+    private final Leaderboard leaderboard = new Leaderboard(100); //best score of every session, in memory only
+
+    public SessionManager() { this(Integer.MAX_VALUE, 0); } //everything stays on the heap
+
+    public SessionManager(int maxLive, long offHeapBytes)
+    {
+        this.maxLive = maxLive;
+        this.store = new OffHeapStore(offHeapBytes);
+    }
+
+    public GameSession start(long dealId)
+    {
+        if (live() >= maxLive) evict();
+        while (true) {
+            String id = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            if (sessions.containsKey(id)) continue;
+            GameSession session = new GameSession(Long.parseUnsignedLong(id, 16), dealId, store, events);
+            if (sessions.putIfAbsent(id, session) == null) {
+                session.logStart(); //published first, see logStart
+                return session;
+            }
+        }
+    }
+
+    public GameSession get(String id) 
+    {
+        GameSession session = id == null ? null : sessions.get(id);
+        if (session != null && session.isParked() && live() >= maxLive) evict(); //make room before it wakes up
+        return session;
+    }
+
+    public boolean end(String id)
+    {
+        GameSession session = sessions.remove(id);
+        if (session == null) return false;
+        session.end();
+        return true;
+    }
+
+    public int size() { return sessions.size(); }
+    public int parked() { return store.records(); }
+    public int live() { return sessions.size() - store.records(); }
+    public OffHeapStore getStore() { return store; }
+    public Leaderboard getLeaderboard() { return leaderboard; }
+    public long getJournalPosition() { return events == null ? 0 : events.position(); }
+
+    //load the checkpoint and replay the journal in dir, then log every new action there.
+    //call once, before serving; returns the number of events replayed
+    public long recover(Path dir) throws IOException
+    {
+        journalDir = dir;
+        events = new EventJournal(dir, SEGMENT_BYTES, FLUSH_MILLIS);
+        long from = 0;
+        Path checkpoint = dir.resolve("checkpoint.bin");
+        if (Files.exists(checkpoint)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint)))) {
+                from = in.readLong();
+                while (in.readBoolean()) {
+                    long key = in.readLong(), lastSeq = in.readLong();
+                    byte[] record = new byte[in.readInt()];
+                    in.readFully(record);
+                    GameSession s = GameSession.restore(key, lastSeq, ByteBuffer.wrap(record), store, events);
+                    sessions.put(s.getId(), s);
+                    if (live() >= maxLive) evict();
+                }
+            }
+        }
+        long start = from;
+        long end = EventJournal.replay(dir, SEGMENT_BYTES, from, (seq, key, kind, value) -> {
+            String id = Long.toHexString(key);
+            if (kind == EventJournal.START) {
+                if (sessions.containsKey(id)) return; //started before the checkpoint
+                sessions.put(id, GameSession.replayStart(key, value, seq, store, events));
+                if (live() >= maxLive) evict();
+            }
+            else if (kind == EventJournal.END) {
+                GameSession s = sessions.remove(id);
+                if (s != null) s.discard();
+            }
+            else {
+                GameSession s = sessions.get(id);
+                if (s != null) s.replay(seq, kind, value);
+            }
+        });
+        return end - start;
+    }
+
+    //save every session and the journal position, so recovery can skip the events before it
+    public void checkpoint() throws IOException
+    {
+        if (events == null) return;
+        long from = events.position(); //every event below this is in the saved sessions
+        Path tmp = journalDir.resolve("checkpoint.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeLong(from);
+            for (GameSession s : sessions.values()) s.checkpoint(out); //sessions ended meanwhile write nothing
+            out.writeBoolean(false);
+        }
+        Files.move(tmp, journalDir.resolve("checkpoint.bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        events.deleteBefore(from);
+    }
+
+    public void close() { if (events != null) events.close(); } //flush the journal
+
+    private void evict() //park sessions until under maxLive, at most two laps of the clock
+    {
+        if (!sweep.tryLock()) return; //someone else is already sweeping
+        try {
+            for (int steps = 2 * sessions.size(); steps > 0 && live() >= maxLive; steps--) {
+                if (hand == null || !hand.hasNext()) hand = sessions.values().iterator();
+                if (!hand.hasNext()) return;
+                GameSession s = hand.next();
+                if (!s.clearReferenced()) s.park(); //second chance for recently used sessions
+            }
+        } finally {
+            sweep.unlock();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.Arrays;
+
+//exhaustive depth-first search for a winning line from a dealt position
+public class Solver 
+{
+    public enum Status { WIN, UNWINNABLE, UNKNOWN }
+
+    public static class Result
+    {
+        private final Status status;
+        private final int[] moves; //winning line (packed Moves), empty unless WIN
+        private final long nodes;
+        private final long tableHits;
+        private final long elapsedNanos;
+
+        Result(Status status, int[] moves, long nodes, long tableHits, long elapsedNanos)
+        {
+            this.status = status;
+            this.moves = moves;
+            this.nodes = nodes;
+            this.tableHits = tableHits;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public Status getStatus() { return status; }
+        public int[] getMoves() { return moves; }
+        public long getNodes() { return nodes; }
+        public long getTableHits() { return tableHits; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        public double nodesPerSecond() { return elapsedNanos == 0 ? 0 : nodes * 1e9 / elapsedNanos; }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s in %d moves, %d nodes, %d table hits, %.0f nodes/s",
+                    status, moves.length, nodes, tableHits, nodesPerSecond());
+        }
+    }
+
+    private final MoveGenerator generator = new MoveGenerator(true);
+    private final long nodeLimit;
+    private final long[] table; //open addressing set of position hashes (0 = empty slot)
+    private final int tableMask;
+    private final int tableLimit; //stop inserting at 3/4 full
+    private int tableCount;
+    private long nodes;
+    private long tableHits;
+
+    public Solver() { this(22, Long.MAX_VALUE); }
+
+    public Solver(int tableBits, long nodeLimit)
+    {
+        this.nodeLimit = nodeLimit;
+        this.table = new long[1 << tableBits];
+        this.tableMask = table.length - 1;
+        this.tableLimit = table.length / 4 * 3;
+    }
+
+    public Result solve(PlayingField field) { return solve(PackedState.of(field)); }
+
+    public Result solve(PackedState start)
+    {
+        long t0 = System.nanoTime();
+        Arrays.fill(table, 0);
+        tableCount = 0;
+        nodes = 0;
+        tableHits = 0;
+
+        PackedState[] states = { start.copy() };
+        int[][] moves = { new int[MoveGenerator.MAX_MOVES] };
+        int[] count = new int[1];
+        int[] next = new int[1];
+        insert(start.positionHash());
+        if (start.isWon()) return new Result(Status.WIN, new int[0], 0, 0, System.nanoTime() - t0);
+
+        count[0] = generator.generate(states[0], moves[0]);
+        int depth = 0;
+        while (depth >= 0)
+        {
+            if (next[depth] == count[depth]) { depth--; continue; } //all children searched
+
+            if (depth + 1 == states.length) //grow the search stack
+            {
+                int n = states.length * 2;
+                states = Arrays.copyOf(states, n);
+                moves = Arrays.copyOf(moves, n);
+                count = Arrays.copyOf(count, n);
+                next = Arrays.copyOf(next, n);
+            }
+            if (states[depth + 1] == null) {
+                states[depth + 1] = new PackedState();
+                moves[depth + 1] = new int[MoveGenerator.MAX_MOVES];
+            }
+
+            int m = moves[depth][next[depth]++];
+            PackedState child = states[depth + 1];
+            child.copyFrom(states[depth]);
+            child.apply(m);
+
+            if (++nodes > nodeLimit || tableCount >= tableLimit) return finish(Status.UNKNOWN, moves, next, 0, t0);
+            if (!insert(child.positionHash())) { tableHits++; continue; } //already searched
+
+            if (child.isWon()) return finish(Status.WIN, moves, next, depth + 1, t0);
+
+            depth++;
+            count[depth] = generator.generate(child, moves[depth]);
+            next[depth] = 0;
+        }
+        return finish(Status.UNWINNABLE, moves, next, 0, t0);
+    }
+
+    private Result finish(Status status, int[][] moves, int[] next, int length, long t0)
+    {
+        int[] line = new int[length];
+        for (int d = 0; d < length; d++) line[d] = moves[d][next[d] - 1]; //move taken at each level
+        return new Result(status, line, nodes, tableHits, System.nanoTime() - t0);
+    }
+
+    private boolean insert(long hash) //add hash to the table, false if it was already there
+    {
+        if (hash == 0) hash = 1;
+        int i = (int) (hash ^ (hash >>> 32)) & tableMask;
+        while (true) {
+            long h = table[i];
+            if (h == hash) return false;
+            if (h == 0) {
+                table[i] = hash;
+                tableCount++;
+                return true;
+            }
+            i = (i + 1) & tableMask;
+        }
+    }
+
+    //usage: java Solver [deals] [tableBits] [firstDealId]
+    public static void main(String[] args)
+    {
+        int deals = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int bits = args.length > 1 ? Integer.parseInt(args[1]) : 22;
+        long firstDeal = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        Solver solver = new Solver(bits, Long.MAX_VALUE);
+        PlayingField field = new PlayingField();
+        long nodes = 0, hits = 0, nanos = 0;
+        int[] byStatus = new int[Status.values().length];
+
+        for (int i = 0; i < deals; i++)
+        {
+            field.startGame(firstDeal + i);
+            Result r = solver.solve(field);
+            System.out.println("deal " + (firstDeal + i) + ": " + r);
+            byStatus[r.getStatus().ordinal()]++;
+            nodes += r.getNodes();
+            hits += r.getTableHits();
+            nanos += r.getElapsedNanos();
+        }
+        System.out.printf("won %d, unwinnable %d, unknown %d | %d nodes, %d table hits, %.0f nodes/s%n",
+                byStatus[0], byStatus[1], byStatus[2], nodes, hits, nanos == 0 ? 0 : nodes * 1e9 / nanos);
+    }
+}
@@ -0,0 +1,21 @@
+//splitmix64, a counter based generator: value i of a stream depends only on (seed, i), no state to allocate
+public final class SplitMix 
+{
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private SplitMix() {}
+
+    public static long at(long seed, long i) { return mix(seed + (i + 1) * GOLDEN); }
+
+    public static long mix(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static int below(long seed, long i, int bound) //uniform int in [0, bound)
+    {
+        return (int) (((at(seed, i) >>> 32) * bound) >>> 32);
+    }
+}
@@ -1,16 +1,20 @@
-import java.util.Collections;
+import java.util.AbstractList;
 import java.util.List;
-import javafx.scene.layout.StackPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 
 public class Stock extends CardPile 
 {
+    private final CardCycle cycle; //shared with the waste
+    private final List<Card> view = new AbstractList<>() { //bottom to top, like every other pile
+        @Override
+        public Card get(int i) { return cycle.at(cycle.wasteSize() + cycle.stockSize() - 1 - i); }
+        @Override
+        public int size() { return cycle.stockSize(); }
+    };
 
-    public Stock() 
+    public Stock(CardCycle cycle) 
     {
         super("Stock"); //name
-        initializeView();
+        this.cycle = cycle;
     }
 
     @Override
@@ -19,51 +23,48 @@ public class Stock extends CardPile
         return false; //cards cannot be manually placed in stock
     }
 
-    public void shuffle() { Collections.shuffle(cards); } //shuffle stock
-
-    public Card draw() { return removeTopCard(); } //draw top card
-
-   //add cards to stock
-    public void addAll(List<Card> list) 
+    public void shuffle(long dealId) //shuffle stock, the same deal ID always gives the same order
     {
-        if (list != null) //null check
-        {
-            cards.addAll(list); //add all cards
-            updateView();
-        }
+        cycle.shuffleStock(dealId); //Fisher-Yates
+        changed();
     }
 
+    public Card draw() { return removeTopCard(); } //draw top card
+
     @Override
-    public StackPane getView() { return view; } //get pile view
+    public boolean isFaceUp() { return false; } //stock cards are always face down
 
+    //the cards live in the cycle, not in the inherited list
     @Override
-    protected void updateView() //show only top card
+    public void addCard(Card card)
     {
-        view.getChildren().clear();
-        if (cards.isEmpty()) {
-            initializeView();
-        } else {
-            Card top = topCard();
-            top.setFaceUp(false); //always face down
-            Rectangle faceDown = new Rectangle(80, 110);
-            faceDown.setArcWidth(15);
-            faceDown.setArcHeight(15);
-            faceDown.setFill(Color.BLUE); //blue for stock
-            faceDown.setStroke(Color.BLACK);
-            view.getChildren().add(faceDown);
+        if (card != null) {
+            cycle.pushStock(card);
+            changed();
         }
     }
 
-
     @Override
-    protected void initializeView() //base pile view (no cards)
+    public Card removeTopCard()
     {
-        Rectangle placeholder = new Rectangle(80, 110);
-        placeholder.setArcWidth(15);
-        placeholder.setArcHeight(15);
-        placeholder.setFill(Color.DARKGREEN);
-        placeholder.setStroke(Color.BLACK);
+        Card c = cycle.popStock();
+        if (c != null) changed();
+        return c;
+    }
 
-        view.getChildren().add(placeholder);
+    @Override
+    public void clear()
+    {
+        cycle.clearStock();
+        changed();
     }
+
+    @Override
+    public List<Card> getCards() { return view; }
+    @Override
+    public boolean isEmpty() { return cycle.stockSize() == 0; }
+    @Override
+    public int size() { return cycle.stockSize(); }
+    @Override
+    public Card topCard() { return isEmpty() ? null : cycle.at(cycle.wasteSize()); }
 }
@@ -1,40 +1,33 @@
-import javafx.scene.layout.StackPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
-
 public class Tableau extends CardPile 
 {
+    private boolean closed = false; //not in play under the current rules, takes no cards
 
     public Tableau(String name) 
     {
         super(name);
-        initializeView();
     }
 
-    @Override
-    public StackPane getView() { return view;} //get pile view
+    public boolean isClosed() { return closed; }
+    public void setClosed(boolean closed) { this.closed = closed; }
 
     //check if can accept card (build down by alternating colors)
     @Override
     public boolean canAccept(Card c) 
     {
-        if (c == null) return false; //null check
-        if (cards.isEmpty()) return true; //empty tableau can accept any card
-
-        Card top = topCard(); //get top card
-        boolean oppositeColor = c.getSuit().isRed() != top.getSuit().isRed(); ///check opposite colors
-        return oppositeColor && c.getRank() == top.getRank() - 1; //check rank down by 1
+        if (c == null || closed) return false; //null check
+        return accepts(cards.isEmpty() ? -1 : topCard().ordinal(), c.ordinal());
     }
 
-    @Override
-    protected void initializeView() //base pile view (no cards)
-    {
-        Rectangle placeholder = new Rectangle(80, 110);
-        placeholder.setArcWidth(15);
-        placeholder.setArcHeight(15);
-        placeholder.setFill(Color.SALMON);
-        placeholder.setStroke(Color.BLACK);
+    //shared rule on card ordinals (top = -1 for an empty tableau, which takes any card), see RuleTables
+    public static boolean accepts(int top, int card) { return RuleTables.tableau(top, card); }
 
-        view.getChildren().add(placeholder);
+    //cards in the run on top: each one fits on the card below it. 0 if empty
+    public int runLength()
+    {
+        int n = cards.size();
+        if (n == 0) return 0;
+        int k = 1;
+        while (k < n && accepts(cards.get(n - k - 1).ordinal(), cards.get(n - k).ordinal())) k++;
+        return k;
     }
 }
@@ -1,32 +1,25 @@
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
-import javafx.scene.layout.StackPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Rectangle;
 
 public class Waste extends CardPile 
 {
-    private final List<Card> wasteCards = new ArrayList<>(); //all drawn cards
+    private final CardCycle cycle; //drawn cards are the front of the stock's cycle
     private int displayCount = 0; //how many cards currently shown (1-3)
-
-    public Waste() 
+    private final List<Card> view = new AbstractList<>() { //bottom to top
+        @Override
+        public Card get(int i) { return cycle.at(i); }
+        @Override
+        public int size() { return cycle.wasteSize(); }
+    };
+
+    public Waste(CardCycle cycle) 
     {
         super("Waste");
-        initializeView();
+        this.cycle = cycle;
     }
 
-    //add drawn cards from stock following Rule-of-3s
-    public void addCardsRuleOf3(List<Card> drawn)
-    {
-        if (drawn == null || drawn.isEmpty()) return;
-
-        //add drawn cards to waste pile
-        wasteCards.addAll(drawn);
-
-        //update displayCount (max 3)
-        displayCount = Math.min(3, wasteCards.size());
-        updateView();
-    }
+    public int getDisplayCount() { return displayCount; }
+    public void setDisplayCount(int count) { displayCount = count; changed(); }
 
     @Override
     public boolean canAccept(Card c)
@@ -35,54 +28,36 @@ public class Waste extends CardPile
     }
 
     @Override
-    public StackPane getView() { return view; }
-
-    @Override
-    protected void initializeView()
+    public void addCard(Card card) //put a card back on top of the waste
     {
-        view.getChildren().clear();
-        Rectangle placeholder = new Rectangle(80, 110);
-        placeholder.setArcWidth(15);
-        placeholder.setArcHeight(15);
-        placeholder.setFill(Color.LIGHTGRAY);
-        placeholder.setStroke(Color.BLACK);
-        view.getChildren().add(placeholder);
+        if (card != null) {
+            cycle.pushWaste(card);
+            changed();
+        }
     }
 
     @Override
-    protected void updateView()
+    public Card removeTopCard() //moves out of the waste take its top card
     {
-        view.getChildren().clear();
-
-        double offset = 15; //horizontal offset for 3 cards
-        int start = Math.max(0, wasteCards.size() - displayCount);
-
-        for (int i = start; i < wasteCards.size(); i++) //show last 'displayCount' cards
-        {
-            Card c = wasteCards.get(i);
-            c.setFaceUp(true);
-            StackPane cardView = c.getView();
-
-            // stack horizontally
-            cardView.setTranslateX((i - start) * offset);
-
-            // top card in front
-            if (i == wasteCards.size() - 1) cardView.toFront();
-
-            view.getChildren().add(cardView);
-        }
+        Card c = cycle.popWaste();
+        if (c != null) changed();
+        return c;
     }
 
-    //draw top card from waste (for moves to tableau/foundation)
-    public Card drawTopCard()
+    @Override
+    public void clear()
     {
-        if (wasteCards.isEmpty()) return null;
-        Card c = wasteCards.remove(wasteCards.size() - 1);
-        updateView();
-        return c;
+        cycle.clearWaste();
+        displayCount = 0;
+        changed();
     }
 
-    public boolean isEmpty() { return wasteCards.isEmpty(); }
-    public int size() { return wasteCards.size(); }
-    public Card topCard() { return wasteCards.isEmpty() ? null : wasteCards.get(wasteCards.size() - 1); }
+    @Override
+    public List<Card> getCards() { return view; }
+    @Override
+    public boolean isEmpty() { return cycle.wasteSize() == 0; }
+    @Override
+    public int size() { return cycle.wasteSize(); }
+    @Override
+    public Card topCard() { return isEmpty() ? null : cycle.at(cycle.wasteSize() - 1); }
 }
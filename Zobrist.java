@@ -0,0 +1,40 @@
+//random 64-bit keys per (card, pile, depth); a position hash is the XOR of the keys of every card,
+//so moving a card only XORs out its old key and XORs in its new one
+public final class Zobrist 
+{
+    private static final long[] KEYS = new long[52 * PlayingField.PILE_COUNT * 52];
+    private static final long[] PASS_KEYS = new long[64]; //stock pass number, only hashed when passes are limited
+
+    static 
+    {
+        for (int i = 0; i < KEYS.length; i++) KEYS[i] = SplitMix.at(0x5DEECE66DL, i); //fixed seed, hashes are stable between runs
+        for (int i = 2; i < PASS_KEYS.length; i++) PASS_KEYS[i] = SplitMix.at(0x5DEECE66DL, KEYS.length + i); //pass 1 hashes as 0
+    }
+
+    private Zobrist() {}
+
+    //depth 0 is the bottom card of the pile
+    public static long key(int card, int pile, int depth) { return KEYS[(card * PlayingField.PILE_COUNT + pile) * 52 + depth]; }
+
+    //with a pass limit the same cards on a later pass are a different position (fewer redeals left).
+    //without one they are the same, so searches still see the cycle
+    public static long passes(int passes, int maxPasses) { return maxPasses == 0 ? 0 : PASS_KEYS[Math.min(passes, 63)]; }
+
+    public static long hash(PlayingField field) //full hash, for (re)initializing
+    {
+        long h = passes(field.getPasses(), field.getMaxPasses());
+        for (int p = 0; p < PlayingField.PILE_COUNT; p++) {
+            var cards = field.getPile(p).getCards();
+            for (int i = 0; i < cards.size(); i++) h ^= key(cards.get(i).ordinal(), p, i);
+        }
+        return h;
+    }
+
+    public static long hash(PackedState s) //full hash, for (re)initializing
+    {
+        long h = passes(s.getPasses(), s.getMaxPasses());
+        for (int p = 0; p < PlayingField.PILE_COUNT; p++)
+            for (int i = 0; i < s.size(p); i++) h ^= key(s.card(p, i), p, i);
+        return h;
+    }
+}